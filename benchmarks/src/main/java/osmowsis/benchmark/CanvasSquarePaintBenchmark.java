@@ -0,0 +1,174 @@
+package osmowsis.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import osmowsis.driver.MowerStatusTracker;
+import osmowsis.driver.SimulationView;
+import osmowsis.driver.Simulator;
+import osmowsis.gui.CanvasSquare;
+import osmowsis.gui.CanvasSquareState;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.puppy.Puppy;
+
+/**
+ *
+ *
+ * Benchmarks {@link CanvasSquare#paintComponent(java.awt.Graphics)} on an
+ * offscreen image, headless, over squares of the lawn as the simulator paints
+ * it midway through a run of the scenario: an even spread of the lawn, plus
+ * every square with a mower or a puppy, so the mix of square states follows the
+ * scenario.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CanvasSquarePaintBenchmark extends ScenarioState {
+
+	/**
+	 * The most squares of the lawn spread painted, besides the ones with agents
+	 */
+	private static final int SPREAD = 1024;
+
+	/**
+	 * The size of a square on the canvas
+	 */
+	private static final int SIZE = 100;
+
+	private CanvasSquare[] squares;
+
+	private BufferedImage image;
+
+	private Graphics2D graphics;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		SquareRecorder recorder = new SquareRecorder(lawnSize);
+		sample(2)[1].paintState(recorder);
+
+		int stride = Math.max(1, lawnSize * lawnSize / SPREAD);
+		List<CanvasSquare> painted = new ArrayList<CanvasSquare>();
+		for (int i = 0; i < lawnSize * lawnSize; i++) {
+			if (i % stride == 0 || recorder.hasAgent(i)) {
+				painted.add(recorder.createSquare(i));
+			}
+		}
+		squares = painted.toArray(new CanvasSquare[0]);
+
+		image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paintComponent() {
+		int i = next;
+		next = i + 1 == squares.length ? 0 : i + 1;
+		squares[i].paintComponent(graphics);
+		return image;
+	}
+
+	/**
+	 * A {@link SimulationView} that keeps the state and texts the simulator paints
+	 * for every square
+	 */
+	private static class SquareRecorder implements SimulationView {
+
+		private int width;
+
+		private CanvasSquareState[] states;
+
+		private String[] mowerTexts;
+
+		private String[] puppyTexts;
+
+		SquareRecorder(int width) {
+			this.width = width;
+			states = new CanvasSquareState[width * width];
+			mowerTexts = new String[width * width];
+			puppyTexts = new String[width * width];
+		}
+
+		boolean hasAgent(int square) {
+			return mowerTexts[square] != null || puppyTexts[square] != null;
+		}
+
+		CanvasSquare createSquare(int square) {
+			CanvasSquare canvasSquare = new CanvasSquare(states[square]);
+			canvasSquare.setSize(SIZE, SIZE);
+			canvasSquare.setMowerSquareText(mowerTexts[square]);
+			canvasSquare.setPuppySquareText(puppyTexts[square]);
+			return canvasSquare;
+		}
+
+		@Override
+		public void initView(Simulator sim, int width, int height, List<String> craters, List<LawnMower> mowers,
+				List<Puppy> puppies, int grassCount, int maxTurns) {
+		}
+
+		@Override
+		public void updateCanvasSquare(int x, int y, CanvasSquareState newState, boolean active) {
+			states[y * width + x] = newState;
+		}
+
+		@Override
+		public void setMowerActiveColor(int x, int y) {
+		}
+
+		@Override
+		public void setPuppyActiveColor(int x, int y) {
+		}
+
+		@Override
+		public void setMowerSquareText(int x, int y, String text) {
+			mowerTexts[y * width + x] = text;
+		}
+
+		@Override
+		public void setPuppySquareText(int x, int y, String text) {
+			puppyTexts[y * width + x] = text;
+		}
+
+		@Override
+		public void repaint(int x, int y) {
+		}
+
+		@Override
+		public void setActive(int x, int y, boolean active) {
+		}
+
+		@Override
+		public void updateStatus(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex,
+				int puppyPollingIndex, int grassCutSoFar, int grassRemaining, int turnsRemaining) {
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package osmowsis.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import osmowsis.driver.SimulationContext;
+import osmowsis.driver.Simulator;
+import osmowsis.misc.SharedScanInfoRepository;
+import osmowsis.misc.SharedVisitInfoRepository;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.lawnmower.MowerAction;
+
+/**
+ *
+ *
+ * Benchmarks {@link LawnMower#decidesNextAction()} over the mowers of the
+ * scenario as they are at several points of a run. A decision changes the path
+ * of the mower, so every invocation decides on a fork of the sampled mower; the
+ * fork copies a few fields and shares the path.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MowerDecisionBenchmark extends ScenarioState {
+
+	/**
+	 * The number of points of the run the mowers are taken at
+	 */
+	private static final int SAMPLES = 8;
+
+	private LawnMower[] sampled;
+
+	private SharedScanInfoRepository[] scanInfos;
+
+	private SharedVisitInfoRepository[] visitInfos;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		List<LawnMower> mowerList = new ArrayList<LawnMower>();
+		List<SharedScanInfoRepository> scanList = new ArrayList<SharedScanInfoRepository>();
+		List<SharedVisitInfoRepository> visitList = new ArrayList<SharedVisitInfoRepository>();
+		for (Simulator sample : sample(SAMPLES)) {
+			SimulationContext context = sample.getContext();
+			for (LawnMower mower : context.getMowers()) {
+				mowerList.add(mower);
+				scanList.add(context.getScanInfo());
+				visitList.add(context.getVisitInfo());
+			}
+		}
+		sampled = mowerList.toArray(new LawnMower[0]);
+		scanInfos = scanList.toArray(new SharedScanInfoRepository[0]);
+		visitInfos = visitList.toArray(new SharedVisitInfoRepository[0]);
+	}
+
+	@Benchmark
+	public MowerAction decidesNextAction() {
+		int i = next;
+		next = i + 1 == sampled.length ? 0 : i + 1;
+		return sampled[i].fork(scanInfos[i], visitInfos[i]).decidesNextAction();
+	}
+}
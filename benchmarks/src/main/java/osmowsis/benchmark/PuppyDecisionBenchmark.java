@@ -0,0 +1,54 @@
+package osmowsis.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import osmowsis.model.puppy.Puppy;
+import osmowsis.model.puppy.PuppyAction;
+
+/**
+ *
+ *
+ * Benchmarks {@link Puppy#decidesNextAction()} over the puppies of the scenario
+ * midway through a run. Deciding only draws from the random stream of the
+ * puppy, so the puppies decide again and again from the same squares.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuppyDecisionBenchmark extends ScenarioState {
+
+	private Puppy[] sampled;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		sampled = sample(2)[1].getContext().getPuppies().toArray(new Puppy[0]);
+	}
+
+	@Benchmark
+	public PuppyAction decidesNextAction() {
+		int i = next;
+		next = i + 1 == sampled.length ? 0 : i + 1;
+		return sampled[i].decidesNextAction();
+	}
+}
@@ -0,0 +1,96 @@
+package osmowsis.benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import osmowsis.misc.SharedScanInfoRepository;
+
+/**
+ *
+ *
+ * Benchmarks the lookups of the {@link SharedScanInfoRepository} the mowers
+ * decide on, with the repository as it is midway through a run of the scenario
+ * and the coordinates spread over the lawn and the margin around it. The
+ * results are per lookup.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanRepositoryBenchmark extends ScenarioState {
+
+	private static final int LOOKUPS = 4096;
+
+	private SharedScanInfoRepository scanInfo;
+
+	private int[] xs = new int[LOOKUPS];
+
+	private int[] ys = new int[LOOKUPS];
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		scanInfo = sample(2)[1].getContext().getScanInfo();
+
+		// the mowers look up to two squares beyond the fence
+		SplittableRandom random = new SplittableRandom(LOOKUPS);
+		for (int i = 0; i < LOOKUPS; i++) {
+			xs[i] = random.nextInt(-2, lawnSize + 2);
+			ys[i] = random.nextInt(-2, lawnSize + 2);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int hasKey() {
+		int found = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			if (scanInfo.hasKey(xs[i], ys[i])) {
+				found += 1;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int isGrass() {
+		int found = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			if (scanInfo.isGrass(xs[i], ys[i])) {
+				found += 1;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUPS)
+	public int occupiedByPuppy() {
+		int found = 0;
+		for (int i = 0; i < LOOKUPS; i++) {
+			if (scanInfo.occupiedByPuppy(xs[i], ys[i])) {
+				found += 1;
+			}
+		}
+		return found;
+	}
+}
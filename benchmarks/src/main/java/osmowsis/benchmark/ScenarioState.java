@@ -0,0 +1,111 @@
+package osmowsis.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import osmowsis.driver.ProtocolLog;
+import osmowsis.driver.ScenarioGenerator;
+import osmowsis.driver.Simulator;
+
+/**
+ *
+ *
+ * The scenario a benchmark runs against: a square lawn of the given size with
+ * the given numbers of mowers and puppies and the given share of craters, made
+ * by the {@link ScenarioGenerator} from a fixed seed so every run of a
+ * benchmark sees the same lawn. The benchmarks extend it and add their own
+ * state on top.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+public abstract class ScenarioState {
+
+	/**
+	 * Seed of the scenario, which the generator also writes as the seed of the
+	 * puppy random streams
+	 */
+	private static final long SEED = 20191018L;
+
+	/**
+	 * The width and height of the lawn
+	 */
+	@Param({ "16", "64", "256" })
+	public int lawnSize;
+
+	@Param({ "1", "8" })
+	public int mowers;
+
+	@Param({ "1", "8" })
+	public int puppies;
+
+	/**
+	 * The share of lawn squares that are craters
+	 */
+	@Param({ "0.0", "0.1", "0.3" })
+	public double craterDensity;
+
+	/**
+	 * Loads the scenario into a new headless {@link Simulator} without a protocol
+	 * log
+	 *
+	 * @return The {@link Simulator}, at the start of the run
+	 * @throws IOException
+	 */
+	protected Simulator load() throws IOException {
+		ScenarioGenerator generator = new ScenarioGenerator(SEED);
+		generator.setSize(lawnSize, lawnSize);
+		generator.setMowerCount(mowers);
+		generator.setPuppyCount(puppies);
+		generator.setCraterDensity(craterDensity);
+		generator.setMaxTurns(2 * lawnSize * lawnSize);
+
+		File file = File.createTempFile("scenario", ".csv");
+		try {
+			try (Writer out = new BufferedWriter(new FileWriter(file))) {
+				generator.generate(out);
+			}
+			Simulator sim = new Simulator();
+			sim.setProtocolLog(new ProtocolLog());
+			sim.initSimulation(file);
+			return sim;
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Runs the scenario and forks it at evenly spaced turns, from the first turn
+	 * up to just before the end, so the forks cover the knowledge the mowers have
+	 * early, midway and late in the run
+	 *
+	 * @param count
+	 *            The number of forks
+	 * @return The forked {@link Simulator}s, in turn order
+	 * @throws IOException
+	 */
+	protected Simulator[] sample(int count) throws IOException {
+		Simulator sim = load();
+		Simulator probe = sim.fork();
+		probe.runToCompletion();
+		int turns = probe.getTurnCount();
+
+		Simulator[] samples = new Simulator[count];
+		for (int i = 0; i < count; i++) {
+			int turn = (int) ((long) turns * i / count);
+			while (sim.getTurnCount() < turn && !sim.run()) {
+				// run up to the turn
+			}
+			samples[i] = sim.fork();
+		}
+		return samples;
+	}
+}
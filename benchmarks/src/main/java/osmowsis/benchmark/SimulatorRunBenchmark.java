@@ -0,0 +1,59 @@
+package osmowsis.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import osmowsis.driver.Simulator;
+
+/**
+ *
+ *
+ * Benchmarks whole runs of the scenario, poll by poll through
+ * {@link Simulator#run()}, headless and without a protocol log. Every run
+ * starts from a fork of the loaded scenario, taken outside the measurement.
+ *
+ * @author Laura  Wang
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorRunBenchmark extends ScenarioState {
+
+	private Simulator start;
+
+	private Simulator sim;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		start = load();
+	}
+
+	@Setup(Level.Invocation)
+	public void fork() {
+		sim = start.fork();
+	}
+
+	@Benchmark
+	public int run() {
+		while (!sim.run()) {
+			// run until the simulation ends
+		}
+		return sim.getTurnCount();
+	}
+}
@@ -0,0 +1,45 @@
+package osmowsis.driver;
+
+/**
+ *
+ *
+ * Where the {@link ScenarioGenerator} puts the mowers or the puppies of a
+ * scenario. An agent never starts on a crater or on another agent; when its
+ * square is taken, it takes the next free square in row order.
+ *
+ * @author Laura  Wang
+ *
+ */
+public enum AgentPlacement {
+
+	/**
+	 * Uniformly at random over the lawn
+	 */
+	Random,
+
+	/**
+	 * Evenly spread, at the centers of a grid of as many cells as agents
+	 */
+	Grid,
+
+	/**
+	 * Packed together from the corner at (0,0), row by row
+	 */
+	Corner;
+
+	/**
+	 * Get the placement from its name, ignoring case
+	 *
+	 * @param name
+	 *            The name (etc "random", "grid", "corner")
+	 * @return The {@link AgentPlacement}
+	 */
+	public static AgentPlacement fromName(String name) {
+		for (AgentPlacement placement : values()) {
+			if (placement.name().equalsIgnoreCase(name)) {
+				return placement;
+			}
+		}
+		throw new IllegalArgumentException("Unknown placement: " + name);
+	}
+}
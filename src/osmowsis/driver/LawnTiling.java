@@ -0,0 +1,101 @@
+package osmowsis.driver;
+
+import osmowsis.misc.ChunkedCodeGrid;
+
+/**
+ *
+ *
+ * Splits the lawn into square tiles for a partitioned turn. An agent belongs to
+ * the tile it stands on at the start of a phase, so agents move between tiles
+ * as they cross tile borders. An agent close enough to a border between tiles
+ * to touch a square of the next tile in one poll is in the halo instead, and is
+ * committed after the tiles, on one thread.
+ *
+ * Tiles are a whole number of {@link ChunkedCodeGrid#CHUNK_SIZE} chunks, so
+ * agents of different tiles never write to the same chunk of the lawn, of the
+ * shared repositories or of the occupancy index.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class LawnTiling {
+
+	/**
+	 * Returned for a square in the halo
+	 */
+	public static final int HALO = -1;
+
+	/**
+	 * How far from its square an agent reads or writes the lawn in one poll (a
+	 * two-step move)
+	 */
+	private static final int REACH = 2;
+
+	private int tileSize;
+
+	/**
+	 * Number of tiles in a row of tiles
+	 */
+	private int tileColumns;
+
+	/**
+	 * Number of rows of tiles
+	 */
+	private int tileRows;
+
+	/**
+	 * Constructor
+	 *
+	 * @param width
+	 *            The width of the lawn
+	 * @param height
+	 *            The height of the lawn
+	 * @param tileSize
+	 *            The width and height of a tile, a multiple of
+	 *            {@link ChunkedCodeGrid#CHUNK_SIZE}
+	 */
+	public LawnTiling(int width, int height, int tileSize) {
+		if (tileSize <= 0 || tileSize % ChunkedCodeGrid.CHUNK_SIZE != 0) {
+			throw new IllegalArgumentException(
+					"Tile size must be a multiple of " + ChunkedCodeGrid.CHUNK_SIZE + ": " + tileSize);
+		}
+		this.tileSize = tileSize;
+		tileColumns = (width + tileSize - 1) / tileSize;
+		tileRows = (height + tileSize - 1) / tileSize;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int getTileCount() {
+		return tileColumns * tileRows;
+	}
+
+	/**
+	 * Returns the tile of an agent standing on the square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The tile index, or {@link #HALO}
+	 */
+	public int tileOf(int x, int y) {
+		int column = x / tileSize;
+		int row = y / tileSize;
+		if (nearBorder(x, column, tileColumns) || nearBorder(y, row, tileRows)) {
+			return HALO;
+		}
+		return row * tileColumns + column;
+	}
+
+	/**
+	 * If the coordinate is within reach of the border to the previous or next
+	 * tile; the fence around the lawn is not a border between tiles
+	 */
+	private boolean nearBorder(int coordinate, int tile, int tiles) {
+		int offset = coordinate - tile * tileSize;
+		return (tile > 0 && offset < REACH) || (tile < tiles - 1 && offset >= tileSize - REACH);
+	}
+}
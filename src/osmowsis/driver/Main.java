@@ -1,37 +1,275 @@
 package osmowsis.driver;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
+import osmowsis.event.BinaryTraceSink;
+import osmowsis.event.EventSink;
+import osmowsis.event.TextProtocolSink;
+import osmowsis.event.Verbosity;
 import osmowsis.gui.GUIFrame;
+import osmowsis.gui.GuiSimulationView;
+import osmowsis.metrics.SimulationMetrics;
 
 /**
  * CS6310 O01 Assignment6
- * 
+ *
  * Main class
- * 
+ *
+ * Usage: Main [--headless] [--seed n] [--parallel-puppies] [--simultaneous-turns]
+ * [--tile-size n] [--verbosity full|actions|report] [--trace trace]
+ * [--record recording [--keyframe-interval n]] [--metrics]
+ * [--snapshot-at turn snapshot] file
+ *
+ * or: Main [--headless] [--metrics] --restore snapshot
+ *
+ * or: Main [--metrics] --replay recording
+ *
+ * --snapshot-at saves the state once the given turn is reached (headless
+ * only); --restore resumes a saved run in place of a scenario file.
+ * --parallel-puppies has the puppies of a turn decide in parallel (see
+ * {@link Simulator#setParallelPuppies(boolean)}), --simultaneous-turns has the
+ * mowers of a turn decide together (see
+ * {@link Simulator#setSimultaneousTurns(boolean)}), --tile-size commits the
+ * agents of a turn tile by tile on several threads (see
+ * {@link Simulator#setTileSize(int)}). --verbosity sets how much of the protocol
+ * is printed (see {@link Verbosity}); the full protocol by default. --trace also
+ * writes the run as a binary trace (see {@link BinaryTraceSink}), gzipped when
+ * the file name ends with .gz. --record saves keyframes of a headless run every
+ * few turns (see {@link RunRecorder}); --replay plays a recording back on the
+ * GUI, with seek to any turn (see {@link RunRecording}). --metrics measures the
+ * run and exposes the measures over JMX (see {@link SimulationMetrics}), and
+ * prints them on the standard error at exit.
+ *
  * @author Laura  Wang
  *
  */
 public class Main {
 
 	public static void main(String[] args) throws NumberFormatException, IOException {
-		
-		Simulator sim = Simulator.getInstance();
-		sim.initSimulation(args[0]);
+
+		boolean headless = false;
+		Long seed = null;
+		boolean parallelPuppies = false;
+		boolean simultaneousTurns = false;
+		int tileSize = 0;
+		Verbosity verbosity = Verbosity.Full;
+		String trace = null;
+		String record = null;
+		int keyframeInterval = RunRecorder.DEFAULT_INTERVAL;
+		String replay = null;
+		boolean measure = false;
+		String restore = null;
+		int snapshotTurn = -1;
+		String snapshot = null;
+		String file = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--headless")) {
+				headless = true;
+			} else if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--parallel-puppies")) {
+				parallelPuppies = true;
+			} else if (args[i].equals("--simultaneous-turns")) {
+				simultaneousTurns = true;
+			} else if (args[i].equals("--tile-size")) {
+				tileSize = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--verbosity")) {
+				verbosity = Verbosity.fromName(args[++i]);
+			} else if (args[i].equals("--trace")) {
+				trace = args[++i];
+			} else if (args[i].equals("--record")) {
+				record = args[++i];
+			} else if (args[i].equals("--keyframe-interval")) {
+				keyframeInterval = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--replay")) {
+				replay = args[++i];
+			} else if (args[i].equals("--metrics")) {
+				measure = true;
+			} else if (args[i].equals("--restore")) {
+				restore = args[++i];
+			} else if (args[i].equals("--snapshot-at")) {
+				snapshotTurn = Integer.parseInt(args[++i]);
+				snapshot = args[++i];
+			} else {
+				file = args[i];
+			}
+		}
+
+		Simulator sim = new Simulator();
+		if (seed != null) {
+			sim.setSeed(seed);
+		}
+		sim.setParallelPuppies(parallelPuppies);
+		sim.setSimultaneousTurns(simultaneousTurns);
+		sim.setTileSize(tileSize);
+		if (measure) {
+			sim.setMetrics(startMetrics());
+		}
+		List<EventSink> sinks = new ArrayList<EventSink>();
+		sinks.add(new TextProtocolSink(new FileOutputStream(FileDescriptor.out), verbosity));
+		if (trace != null) {
+			sinks.add(new BinaryTraceSink(new FileOutputStream(trace), trace.endsWith(".gz")));
+		}
+		sim.setProtocolLog(new ProtocolLog(sinks.toArray(new EventSink[sinks.size()])));
+
+		if (replay != null) {
+			// a replay runs the recorded polls again; they are not logged
+			sim.setProtocolLog(new ProtocolLog());
+			startReplay(sim, replay);
+		} else if (headless) {
+			load(sim, file, restore);
+			if (snapshot != null) {
+				while (sim.getTurnCount() < snapshotTurn && !sim.run()) {
+					// run until the turn to save at
+				}
+				try (FileChannel channel = FileChannel.open(Paths.get(snapshot), StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+					sim.writeSnapshot(channel);
+				}
+			}
+			if (record != null) {
+				record(sim, record, keyframeInterval);
+			} else {
+				sim.runToCompletion();
+			}
+		} else {
+			startGui(sim, file, restore);
+		}
+	}
+
+	/**
+	 * Inits the simulation from the scenario file, or restores it from a snapshot
+	 *
+	 * @param sim
+	 *            The {@link Simulator}
+	 * @param file
+	 *            The scenario file
+	 * @param restore
+	 *            The snapshot file, or null
+	 * @throws IOException
+	 */
+	private static void load(Simulator sim, String file, String restore) throws IOException {
+		if (restore != null) {
+			try (FileChannel channel = FileChannel.open(Paths.get(restore), StandardOpenOption.READ)) {
+				sim.restoreSnapshot(channel);
+			}
+		} else {
+			sim.initSimulation(file);
+		}
+	}
+
+	/**
+	 * Registers new metrics over JMX and has them printed at exit
+	 *
+	 * @return The {@link SimulationMetrics}
+	 */
+	private static SimulationMetrics startMetrics() {
+		final SimulationMetrics metrics = new SimulationMetrics();
+		try {
+			metrics.register();
+		} catch (JMException e) {
+			System.err.println("Metrics not available over JMX: " + e.getMessage());
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				metrics.dump(System.err);
+			}
+
+		}));
+		return metrics;
+	}
+
+	/**
+	 * Runs the simulation to the end, recording it
+	 *
+	 * @param sim
+	 *            The {@link Simulator}
+	 * @param record
+	 *            The recording file
+	 * @param keyframeInterval
+	 *            The number of turns between keyframes
+	 * @throws IOException
+	 */
+	private static void record(Simulator sim, String record, int keyframeInterval) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(record), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+				RunRecorder recorder = new RunRecorder(channel, keyframeInterval)) {
+			recorder.record(sim);
+			while (!sim.run()) {
+				recorder.record(sim);
+			}
+		}
+	}
+
+	/**
+	 * Restores the start of a recording on the GUI and shows the replay frame
+	 *
+	 * @param sim
+	 *            The {@link Simulator}
+	 * @param replay
+	 *            The recording file
+	 * @throws IOException
+	 */
+	private static void startReplay(final Simulator sim, String replay) throws IOException {
+		final GuiSimulationView view = new GuiSimulationView();
+		sim.setView(view);
+		final RunRecording recording = new RunRecording(FileChannel.open(Paths.get(replay), StandardOpenOption.READ));
+		recording.restore(sim, 0);
 
 		SwingUtilities.invokeLater(new Runnable() {
 
 			@Override
 			public void run() {
-				JFrame frame = GUIFrame.getFrame();
+				JFrame frame = new GUIFrame(sim, view, recording);
 				frame.pack();
 				frame.setVisible(true);
-				
+
 			}
-			
+
+		});
+	}
+
+	/**
+	 * Inits the simulation on the GUI and shows the frame
+	 *
+	 * @param sim
+	 *            The {@link Simulator}
+	 * @param file
+	 *            The input file
+	 * @param restore
+	 *            The snapshot file, or null
+	 * @throws NumberFormatException
+	 * @throws IOException
+	 */
+	private static void startGui(final Simulator sim, String file, String restore)
+			throws NumberFormatException, IOException {
+		final GuiSimulationView view = new GuiSimulationView();
+		sim.setView(view);
+		load(sim, file, restore);
+
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run() {
+				JFrame frame = new GUIFrame(sim, view);
+				frame.pack();
+				frame.setVisible(true);
+
+			}
+
 		});
-		
 	}
 }
@@ -0,0 +1,300 @@
+package osmowsis.driver;
+
+import java.io.IOException;
+
+import osmowsis.misc.SnapshotInput;
+import osmowsis.misc.SnapshotOutput;
+
+/**
+ *
+ *
+ * Tracks whether each mower is crashed, turned off or stalled. The status of
+ * every mower is a set of flags in one byte, and the number of crashed, turned
+ * off and stalled mowers is kept up to date as the flags change, so every
+ * query is constant time.
+ *
+ * A mower can be stalled by a mower-mower collision and by a puppy at the same
+ * time; it stays stalled until both are released. Mower-mower stalls are
+ * released by {@link #endTurn()} through a {@link StallReleaseWheel}.
+ *
+ * Status changes are synchronized, so mowers on different tiles of a
+ * partitioned turn can change their own statuses concurrently.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class MowerStatusTracker {
+
+	private static final byte CRASHED = 1;
+
+	private static final byte POWERED_OFF = 2;
+
+	private static final byte STALLED_BY_MOWER = 4;
+
+	private static final byte STALLED_BY_PUPPY = 8;
+
+	private static final byte STALLED = STALLED_BY_MOWER | STALLED_BY_PUPPY;
+
+	/**
+	 * The status flags, the index is the id of the mower (0,1,2...)
+	 */
+	private byte[] statuses;
+
+	private int crashedCount;
+
+	private int poweredOffCount;
+
+	private int stalledCount;
+
+	/**
+	 * Number of stalled turns in mower-mower collision
+	 */
+	private int stallTurns;
+
+	/**
+	 * The number of turns ended so far
+	 */
+	private int turn;
+
+	/**
+	 * Release turns of the mower-mower stalls
+	 */
+	private StallReleaseWheel releases;
+
+	/**
+	 * Constructor; every mower starts active
+	 *
+	 * @param mowerCount
+	 *            The number of mowers
+	 * @param stallTurns
+	 *            Number of stalled turns in mower-mower collision; with 0 the
+	 *            mower is never released
+	 */
+	public MowerStatusTracker(int mowerCount, int stallTurns) {
+		statuses = new byte[mowerCount];
+		this.stallTurns = stallTurns;
+		releases = new StallReleaseWheel(stallTurns + 1, mowerCount);
+	}
+
+	/**
+	 * Returns an independent copy of the tracker
+	 *
+	 * @return The copied {@link MowerStatusTracker}
+	 */
+	public MowerStatusTracker copy() {
+		MowerStatusTracker copy = new MowerStatusTracker(0, stallTurns);
+		copy.statuses = statuses.clone();
+		copy.crashedCount = crashedCount;
+		copy.poweredOffCount = poweredOffCount;
+		copy.stalledCount = stalledCount;
+		copy.turn = turn;
+		copy.releases = releases.copy();
+		return copy;
+	}
+
+	/**
+	 * Returns the number of mowers
+	 *
+	 * @return The number of mowers
+	 */
+	public int getMowerCount() {
+		return statuses.length;
+	}
+
+	public int getStallTurns() {
+		return stallTurns;
+	}
+
+	/**
+	 * If the mower can be polled (etc it is not crashed, turned off or stalled)
+	 *
+	 * @param id
+	 *            The mower id
+	 * @return True or false
+	 */
+	public boolean isPollable(int id) {
+		return statuses[id] == 0;
+	}
+
+	public boolean isCrashed(int id) {
+		return (statuses[id] & CRASHED) != 0;
+	}
+
+	public boolean isPoweredOff(int id) {
+		return (statuses[id] & POWERED_OFF) != 0;
+	}
+
+	public boolean isStalled(int id) {
+		return (statuses[id] & STALLED) != 0;
+	}
+
+	public boolean isStalledByMower(int id) {
+		return (statuses[id] & STALLED_BY_MOWER) != 0;
+	}
+
+	/**
+	 * Returns how many more turns the mower stays stalled by a mower-mower
+	 * collision
+	 *
+	 * @param id
+	 *            The mower id
+	 * @return The number of turns, or 0 when the stall is never released
+	 */
+	public int getStallTurnsRemaining(int id) {
+		if (!releases.isScheduled(id)) {
+			return 0;
+		}
+		return releases.getReleaseTurn(id) - turn;
+	}
+
+	public int getCrashedCount() {
+		return crashedCount;
+	}
+
+	public int getPoweredOffCount() {
+		return poweredOffCount;
+	}
+
+	public int getStalledCount() {
+		return stalledCount;
+	}
+
+	/**
+	 * Marks the mower as crashed
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void crash(int id) {
+		if (!isCrashed(id)) {
+			statuses[id] |= CRASHED;
+			crashedCount += 1;
+		}
+	}
+
+	/**
+	 * Marks the mower as turned off
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void powerOff(int id) {
+		if (!isPoweredOff(id)) {
+			statuses[id] |= POWERED_OFF;
+			poweredOffCount += 1;
+		}
+	}
+
+	/**
+	 * Stalls the mower after bumping into another mower, for the configured
+	 * number of turns
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void stallByMower(int id) {
+		setStall(id, STALLED_BY_MOWER);
+		if (stallTurns > 0) {
+			releases.schedule(id, turn + stallTurns);
+		}
+	}
+
+	/**
+	 * Releases the mower-mower collision stall of the mower
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void releaseMowerStall(int id) {
+		clearStall(id, STALLED_BY_MOWER);
+	}
+
+	/**
+	 * Stalls the mower because it shares its square with a puppy
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void stallByPuppy(int id) {
+		setStall(id, STALLED_BY_PUPPY);
+	}
+
+	/**
+	 * Releases the puppy stall of the mower
+	 *
+	 * @param id
+	 *            The mower id
+	 */
+	public synchronized void releasePuppyStall(int id) {
+		clearStall(id, STALLED_BY_PUPPY);
+	}
+
+	/**
+	 * Ends the turn and releases the mower-mower stalls that are due
+	 */
+	public synchronized void endTurn() {
+		turn += 1;
+		for (int id = releases.pollDue(turn); id != StallReleaseWheel.NONE; id = releases.pollDue(turn)) {
+			releaseMowerStall(id);
+		}
+	}
+
+	/**
+	 * Writes the statuses and the pending stall releases to a snapshot
+	 *
+	 * @param out
+	 *            The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		out.writeInt(turn);
+		for (int id = 0; id < statuses.length; id++) {
+			out.writeByte(statuses[id]);
+			out.writeInt(releases.getReleaseTurn(id));
+		}
+	}
+
+	/**
+	 * Reads the statuses written by {@link #writeSnapshot(SnapshotOutput)} into a
+	 * tracker created for the same mowers and stall turns
+	 *
+	 * @param in
+	 *            The {@link SnapshotInput}
+	 * @throws IOException
+	 */
+	public void readSnapshot(SnapshotInput in) throws IOException {
+		turn = in.readInt();
+		for (int id = 0; id < statuses.length; id++) {
+			statuses[id] = (byte) in.readByte();
+			if (isCrashed(id)) {
+				crashedCount += 1;
+			}
+			if (isPoweredOff(id)) {
+				poweredOffCount += 1;
+			}
+			if (isStalled(id)) {
+				stalledCount += 1;
+			}
+
+			int releaseTurn = in.readInt();
+			if (releaseTurn != StallReleaseWheel.NONE) {
+				releases.schedule(id, releaseTurn);
+			}
+		}
+	}
+
+	private void setStall(int id, byte reason) {
+		if (!isStalled(id)) {
+			stalledCount += 1;
+		}
+		statuses[id] |= reason;
+	}
+
+	private void clearStall(int id, byte reason) {
+		boolean wasStalled = isStalled(id);
+		statuses[id] &= ~reason;
+		if (wasStalled && !isStalled(id)) {
+			stalledCount -= 1;
+		}
+	}
+}
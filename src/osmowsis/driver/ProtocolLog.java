@@ -0,0 +1,299 @@
+package osmowsis.driver;
+
+import java.io.OutputStream;
+
+import osmowsis.event.EventBuffer;
+import osmowsis.event.EventPublisher;
+import osmowsis.event.EventRing;
+import osmowsis.event.EventSink;
+import osmowsis.event.EventType;
+import osmowsis.event.TextProtocolSink;
+import osmowsis.event.Verbosity;
+import osmowsis.misc.Direction;
+import osmowsis.misc.ScanResult;
+import osmowsis.model.lawnmower.MowerAction;
+import osmowsis.model.puppy.PuppyAction;
+
+/**
+ *
+ *
+ * The protocol log of one simulation run: publishes the polled actions, the
+ * simulator responses, the turns and the final report as
+ * {@link osmowsis.event.SimulationEvent}s to the sinks of the run, through an
+ * {@link EventRing}. A log without sinks publishes nothing.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class ProtocolLog {
+
+	/**
+	 * Where the events go; null when the log is disabled
+	 */
+	private EventPublisher events;
+
+	/**
+	 * Constructor for the full text protocol
+	 *
+	 * @param out
+	 *            The stream to print on
+	 */
+	public ProtocolLog(OutputStream out) {
+		this(out, Verbosity.Full);
+	}
+
+	/**
+	 * Constructor for the text protocol
+	 *
+	 * @param out
+	 *            The stream to print on
+	 * @param verbosity
+	 *            How much of the protocol to print
+	 */
+	public ProtocolLog(OutputStream out, Verbosity verbosity) {
+		this(new TextProtocolSink(out, verbosity));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param sinks
+	 *            The sinks of the run; none to disable the log
+	 */
+	public ProtocolLog(EventSink... sinks) {
+		if (sinks.length > 0) {
+			events = new EventRing(EventRing.DEFAULT_CAPACITY, sinks);
+		}
+	}
+
+	private ProtocolLog(EventPublisher events) {
+		this.events = events;
+	}
+
+	/**
+	 * If the log publishes anything
+	 *
+	 * @return True or false
+	 */
+	public boolean isEnabled() {
+		return events != null;
+	}
+
+	/**
+	 * Returns a log that keeps its events in memory until they are appended to
+	 * this log with {@link #append(ProtocolLog)}; disabled when this log is
+	 * disabled. Lets agents committed on other threads publish in a fixed order.
+	 *
+	 * @return The buffered {@link ProtocolLog}
+	 */
+	public ProtocolLog newBuffer() {
+		return new ProtocolLog(events == null ? null : new EventBuffer());
+	}
+
+	/**
+	 * Publishes the events of a log created by {@link #newBuffer()}, and empties it
+	 *
+	 * @param buffered
+	 *            The buffered {@link ProtocolLog}
+	 */
+	public void append(ProtocolLog buffered) {
+		if (events != null && buffered.events instanceof EventBuffer) {
+			((EventBuffer) buffered.events).drainTo(events);
+		}
+	}
+
+	/**
+	 * Waits until the sinks have handled and flushed every event so far
+	 */
+	public void flush() {
+		if (events instanceof EventRing) {
+			((EventRing) events).flush();
+		}
+	}
+
+	/**
+	 * Flushes the sinks and releases the consumer thread of the log
+	 */
+	public void close() {
+		if (events instanceof EventRing) {
+			((EventRing) events).close();
+		}
+	}
+
+	/**
+	 * Publishes a mower poll
+	 *
+	 * @param mowerId
+	 *            The mower id (0,1,2...)
+	 * @param action
+	 *            The {@link MowerAction}
+	 */
+	public void mowerAction(int mowerId, MowerAction action) {
+		if (events != null) {
+			events.claim().reset(EventType.MowerPolled, mowerId).setActionCode(action.getCode());
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes a puppy poll
+	 *
+	 * @param puppyId
+	 *            The puppy id (0,1,2...)
+	 * @param action
+	 *            The {@link PuppyAction}
+	 * @param x
+	 *            The x coordinate of the destination of a move
+	 * @param y
+	 *            The y coordinate of the destination of a move, in protocol
+	 *            coordinates
+	 */
+	public void puppyAction(int puppyId, PuppyAction action, int x, int y) {
+		if (events != null) {
+			events.claim().reset(EventType.PuppyPolled, puppyId).setActionCode(action.getCode()).setPosition(x, y);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the okay response to a mower move
+	 *
+	 * @param mowerId
+	 *            The mower id
+	 * @param steps
+	 *            The number of steps taken
+	 * @param direction
+	 *            The {@link Direction} of the mower after the move
+	 * @param x
+	 *            The x coordinate after the move
+	 * @param y
+	 *            The y coordinate after the move, in protocol coordinates
+	 */
+	public void moved(int mowerId, int steps, Direction direction, int x, int y) {
+		if (events != null) {
+			events.claim().reset(EventType.Moved, mowerId).setSteps(steps).setDirection(direction).setPosition(x, y);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the okay response to a mower turning off
+	 *
+	 * @param mowerId
+	 *            The mower id
+	 */
+	public void turnedOff(int mowerId) {
+		publish(EventType.TurnedOff, mowerId);
+	}
+
+	/**
+	 * Publishes the stall response
+	 *
+	 * @param mowerId
+	 *            The mower id
+	 * @param steps
+	 *            The number of steps taken
+	 * @param x
+	 *            The x coordinate after the steps taken
+	 * @param y
+	 *            The y coordinate after the steps taken, in protocol coordinates
+	 */
+	public void stall(int mowerId, int steps, int x, int y) {
+		if (events != null) {
+			events.claim().reset(EventType.Stalled, mowerId).setSteps(steps).setPosition(x, y);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the crash response
+	 *
+	 * @param mowerId
+	 *            The mower id
+	 */
+	public void crash(int mowerId) {
+		publish(EventType.Crashed, mowerId);
+	}
+
+	/**
+	 * Publishes the scan response
+	 *
+	 * @param mowerId
+	 *            The mower id
+	 * @param scanResponse
+	 *            The scan response, packed as a {@link ScanResult}
+	 */
+	public void scan(int mowerId, int scanResponse) {
+		if (events != null) {
+			events.claim().reset(EventType.Scanned, mowerId).setScan(scanResponse);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the okay response to a puppy move
+	 *
+	 * @param puppyId
+	 *            The puppy id
+	 * @param x
+	 *            The x coordinate after the move
+	 * @param y
+	 *            The y coordinate after the move, in protocol coordinates
+	 */
+	public void puppyMoved(int puppyId, int x, int y) {
+		if (events != null) {
+			events.claim().reset(EventType.PuppyMoved, puppyId).setPosition(x, y);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the okay response to a puppy staying
+	 *
+	 * @param puppyId
+	 *            The puppy id
+	 */
+	public void puppyStayed(int puppyId) {
+		publish(EventType.PuppyStayed, puppyId);
+	}
+
+	/**
+	 * Publishes the end of a turn
+	 *
+	 * @param turn
+	 *            The number of turns run so far
+	 */
+	public void turnEnded(int turn) {
+		if (events != null) {
+			events.claim().reset(EventType.TurnEnded, 0).setTurn(turn);
+			events.publish();
+		}
+	}
+
+	/**
+	 * Publishes the final report
+	 *
+	 * @param totalSquares
+	 *            The number of squares on the lawn
+	 * @param cuttableSquares
+	 *            The number of grass squares at the start
+	 * @param grassCut
+	 *            The number of grass squares cut
+	 * @param turns
+	 *            The number of turns run
+	 */
+	public void finalReport(int totalSquares, int cuttableSquares, int grassCut, int turns) {
+		if (events != null) {
+			events.claim().reset(EventType.SimulationEnded, 0).setReport(totalSquares, cuttableSquares, grassCut,
+					turns);
+			events.publish();
+		}
+	}
+
+	private void publish(EventType type, int agentId) {
+		if (events != null) {
+			events.claim().reset(type, agentId);
+			events.publish();
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package osmowsis.driver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ *
+ *
+ * Records a run for replay: a deflated snapshot of the simulation (a keyframe)
+ * every few turns and at the end, then an index of the keyframes by turn, see
+ * {@link RunRecording}. The turns between keyframes are not stored; the
+ * simulation is deterministic from a snapshot, so replay runs them again.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class RunRecorder implements Closeable {
+
+	/**
+	 * Default number of turns between keyframes
+	 */
+	public static final int DEFAULT_INTERVAL = 100;
+
+	private FileChannel channel;
+
+	private int interval;
+
+	/**
+	 * The turn the next keyframe is due at; -1 before the first keyframe
+	 */
+	private int nextTurn = -1;
+
+	private int count;
+
+	private int[] turns = new int[16];
+
+	private long[] offsets = new long[16];
+
+	private Simulator last;
+
+	private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	private Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+	/**
+	 * Constructor
+	 *
+	 * @param channel
+	 *            The channel to write the recording to, from its start
+	 * @param interval
+	 *            The number of turns between keyframes
+	 * @throws IOException
+	 */
+	public RunRecorder(FileChannel channel, int interval) throws IOException {
+		if (interval <= 0) {
+			throw new IllegalArgumentException("Keyframe interval must be positive: " + interval);
+		}
+		this.channel = channel;
+		this.interval = interval;
+
+		ByteBuffer header = ByteBuffer.allocate(RunRecording.HEADER_SIZE);
+		header.putInt(RunRecording.MAGIC).putInt(RunRecording.VERSION).putInt(Simulator.SNAPSHOT_VERSION)
+				.putInt(interval).flip();
+		write(header);
+	}
+
+	/**
+	 * Takes a keyframe of the simulation if one is due; call after every poll
+	 *
+	 * @param sim
+	 *            The recorded {@link Simulator}
+	 * @throws IOException
+	 */
+	public void record(Simulator sim) throws IOException {
+		last = sim;
+		int turn = sim.getTurnCount();
+		if (nextTurn < 0 || turn >= nextTurn) {
+			keyframe(sim, turn);
+			nextTurn = turn - turn % interval + interval;
+		}
+	}
+
+	/**
+	 * Takes the final keyframe and writes the index
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (last != null) {
+			keyframe(last, last.getTurnCount());
+			last = null;
+		}
+
+		long indexOffset = channel.position();
+		ByteBuffer index = ByteBuffer.allocate(4 + count * 12 + RunRecording.FOOTER_SIZE);
+		index.putInt(count);
+		for (int i = 0; i < count; i++) {
+			index.putInt(turns[i]).putLong(offsets[i]);
+		}
+		index.putLong(indexOffset).putInt(RunRecording.MAGIC).flip();
+		write(index);
+		deflater.end();
+	}
+
+	/**
+	 * Writes a keyframe: the turn, the length of the deflated snapshot and the
+	 * deflated snapshot
+	 */
+	private void keyframe(Simulator sim, int turn) throws IOException {
+		bytes.reset();
+		deflater.reset();
+		DeflaterOutputStream deflated = new DeflaterOutputStream(bytes, deflater, 1 << 16);
+		sim.writeSnapshot(Channels.newChannel(deflated));
+		deflated.finish();
+
+		if (count == turns.length) {
+			turns = Arrays.copyOf(turns, count * 2);
+			offsets = Arrays.copyOf(offsets, count * 2);
+		}
+		turns[count] = turn;
+		offsets[count] = channel.position();
+		count += 1;
+
+		ByteBuffer header = ByteBuffer.allocate(8);
+		header.putInt(turn).putInt(bytes.size()).flip();
+		write(header);
+		write(ByteBuffer.wrap(bytes.toByteArray()));
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
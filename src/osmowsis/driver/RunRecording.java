@@ -0,0 +1,191 @@
+package osmowsis.driver;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ *
+ *
+ * A run recorded by {@link RunRecorder}, for replay with random access: seeking
+ * to a turn restores the last keyframe at or before it and runs the simulation
+ * from there to the turn, so it costs one snapshot and at most one keyframe
+ * interval of polls.
+ *
+ * The turns between keyframes are simulated again, so a recording can only be
+ * replayed by a simulator with the same snapshot version as the one that made
+ * it; any other is rejected on load.
+ *
+ * The file is a header (magic number, version, snapshot version, keyframe
+ * interval), the keyframes (turn, length, deflated snapshot), the index (count,
+ * then turn and file offset of every keyframe) and a footer (index offset,
+ * magic number).
+ *
+ * @author Laura  Wang
+ *
+ */
+public class RunRecording implements Closeable {
+
+	static final int MAGIC = 0x4f534d52;
+
+	static final int VERSION = 2;
+
+	static final int HEADER_SIZE = 16;
+
+	static final int FOOTER_SIZE = 12;
+
+	private FileChannel channel;
+
+	private int interval;
+
+	private int[] turns;
+
+	private long[] offsets;
+
+	/**
+	 * Constructor; reads the index
+	 *
+	 * @param channel
+	 *            The channel to read the recording from
+	 * @throws IOException
+	 */
+	public RunRecording(FileChannel channel) throws IOException {
+		this.channel = channel;
+
+		ByteBuffer header = read(0, HEADER_SIZE);
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not a run recording");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported recording version " + version);
+		}
+		int snapshotVersion = header.getInt();
+		if (snapshotVersion != Simulator.SNAPSHOT_VERSION) {
+			throw new IOException("Recording made with snapshot version " + snapshotVersion
+					+ ", this simulator replays version " + Simulator.SNAPSHOT_VERSION);
+		}
+		interval = header.getInt();
+
+		long size = channel.size();
+		ByteBuffer footer = read(size - FOOTER_SIZE, FOOTER_SIZE);
+		long indexOffset = footer.getLong();
+		if (footer.getInt() != MAGIC || indexOffset < HEADER_SIZE || indexOffset > size - FOOTER_SIZE) {
+			throw new IOException("Run recording is incomplete");
+		}
+
+		ByteBuffer index = read(indexOffset, (int) (size - FOOTER_SIZE - indexOffset));
+		int count = index.getInt();
+		if (count <= 0) {
+			throw new IOException("Run recording has no keyframes");
+		}
+		turns = new int[count];
+		offsets = new long[count];
+		for (int i = 0; i < count; i++) {
+			turns[i] = index.getInt();
+			offsets[i] = index.getLong();
+		}
+	}
+
+	public int getInterval() {
+		return interval;
+	}
+
+	public int getKeyframeCount() {
+		return turns.length;
+	}
+
+	/**
+	 * Returns the turn of the first keyframe
+	 *
+	 * @return The turn
+	 */
+	public int getFirstTurn() {
+		return turns[0];
+	}
+
+	/**
+	 * Returns the turn the recorded run ended at
+	 *
+	 * @return The turn
+	 */
+	public int getLastTurn() {
+		return turns[turns.length - 1];
+	}
+
+	/**
+	 * Restores the simulator to the state of a keyframe
+	 *
+	 * @param sim
+	 *            The {@link Simulator}
+	 * @param keyframe
+	 *            The keyframe index (0,1,2...)
+	 * @throws IOException
+	 */
+	public void restore(Simulator sim, int keyframe) throws IOException {
+		ByteBuffer header = read(offsets[keyframe], 8);
+		header.getInt();
+		int length = header.getInt();
+		ByteBuffer deflated = read(offsets[keyframe] + 8, length);
+
+		Inflater inflater = new Inflater();
+		try (InputStream in = new InflaterInputStream(
+				new ByteArrayInputStream(deflated.array(), 0, length), inflater, 1 << 16)) {
+			sim.restoreSnapshot(Channels.newChannel(in));
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Brings the simulator to the start of a turn (or to the end of the run, if it
+	 * ended before): restores the last keyframe at or before the turn and runs the
+	 * polls from there. Seeking to a turn before the first keyframe restores the
+	 * first keyframe.
+	 *
+	 * @param sim
+	 *            The {@link Simulator}; its view, if any, is painted on while the
+	 *            polls run
+	 * @param turn
+	 *            The turn
+	 * @throws IOException
+	 */
+	public void seek(Simulator sim, int turn) throws IOException {
+		int keyframe = Arrays.binarySearch(turns, turn);
+		if (keyframe < 0) {
+			keyframe = -keyframe - 2;
+		} else {
+			// the last keyframe of the turn, which is the end for the last turn
+			while (keyframe + 1 < turns.length && turns[keyframe + 1] == turn) {
+				keyframe += 1;
+			}
+		}
+		restore(sim, Math.max(keyframe, 0));
+		while (sim.getTurnCount() < turn && !sim.run()) {
+			// run up to the turn
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Run recording is truncated");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+}
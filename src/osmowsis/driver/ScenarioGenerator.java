@@ -0,0 +1,441 @@
+package osmowsis.driver;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+import osmowsis.misc.Direction;
+import osmowsis.misc.SeededRandom;
+
+/**
+ *
+ *
+ * Generates scenario files of any size from a seed, for load and scaling runs.
+ * The same seed and settings always give the same file, so large scenarios
+ * can be made again where they are needed instead of being kept.
+ *
+ * Whether a square is a crater is a hash of its position, so the craters are
+ * streamed out row by row, after a first pass that counts them, and nothing of
+ * the size of the lawn is held in memory. With clustering, the lawn is divided
+ * in cells and a share of the cells (the crater density) is made crater-dense:
+ * at clustering 0 the craters are spread uniformly, at 1 they fill whole cells;
+ * the expected density stays the same. The mowers and puppies are placed on
+ * free squares (see {@link AgentPlacement}), and the seed is written as the
+ * seed of the puppy random streams.
+ *
+ * Usage: ScenarioGenerator [--seed n] [--size widthxheight] [--mowers n]
+ * [--puppies n] [--crater-density d] [--crater-clustering c] [--cluster-size n]
+ * [--mower-placement random|grid|corner] [--puppy-placement random|grid|corner]
+ * [--stall-turns n] [--stay-percent n] [--max-turns n] [file]
+ *
+ * writes the scenario to the file, or on the standard output.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class ScenarioGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * Scales the top 53 bits of a random long to a double in [0, 1)
+	 */
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private long seed;
+
+	private int width = 100;
+
+	private int height = 100;
+
+	private int mowerCount = 1;
+
+	private int puppyCount = 1;
+
+	private double craterDensity = 0;
+
+	private double craterClustering = 0;
+
+	private int clusterSize = 16;
+
+	private AgentPlacement mowerPlacement = AgentPlacement.Random;
+
+	private AgentPlacement puppyPlacement = AgentPlacement.Random;
+
+	private int stallTurns = 2;
+
+	private int stayPercent = 50;
+
+	/**
+	 * The maximum number of turns; -1 for one turn per lawn square
+	 */
+	private int maxTurns = -1;
+
+	/**
+	 * Seeds of the crater hashes of the squares and of the cells, and of the
+	 * agent placements and directions
+	 */
+	private long craterSeed;
+
+	private long cellSeed;
+
+	private long agentSeed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param seed
+	 *            The seed of the scenario
+	 */
+	public ScenarioGenerator(long seed) {
+		this.seed = seed;
+		SeededRandom random = new SeededRandom(seed);
+		craterSeed = random.nextLong();
+		cellSeed = random.nextLong();
+		agentSeed = random.nextLong();
+	}
+
+	/**
+	 * Sets the size of the lawn
+	 *
+	 * @param width
+	 *            The width
+	 * @param height
+	 *            The height
+	 */
+	public void setSize(int width, int height) {
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bad lawn size: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Sets the number of mowers
+	 *
+	 * @param mowerCount
+	 *            The number, not negative
+	 */
+	public void setMowerCount(int mowerCount) {
+		if (mowerCount < 0) {
+			throw new IllegalArgumentException("Mower count must not be negative: " + mowerCount);
+		}
+		this.mowerCount = mowerCount;
+	}
+
+	/**
+	 * Sets the number of puppies; the simulator polls a puppy every turn, so a
+	 * scenario needs at least one
+	 *
+	 * @param puppyCount
+	 *            The number, at least 1
+	 */
+	public void setPuppyCount(int puppyCount) {
+		if (puppyCount < 1) {
+			throw new IllegalArgumentException("Puppy count must be at least 1: " + puppyCount);
+		}
+		this.puppyCount = puppyCount;
+	}
+
+	/**
+	 * Sets the expected share of lawn squares that are craters
+	 *
+	 * @param craterDensity
+	 *            The share, between 0 and 1
+	 */
+	public void setCraterDensity(double craterDensity) {
+		if (craterDensity < 0 || craterDensity > 1) {
+			throw new IllegalArgumentException("Crater density must be between 0 and 1: " + craterDensity);
+		}
+		this.craterDensity = craterDensity;
+	}
+
+	/**
+	 * Sets how much the craters cluster in cells
+	 *
+	 * @param craterClustering
+	 *            0 for uniformly spread craters, up to 1 for craters filling
+	 *            whole cells
+	 */
+	public void setCraterClustering(double craterClustering) {
+		if (craterClustering < 0 || craterClustering > 1) {
+			throw new IllegalArgumentException("Crater clustering must be between 0 and 1: " + craterClustering);
+		}
+		this.craterClustering = craterClustering;
+	}
+
+	/**
+	 * Sets the width and height of the cells the craters cluster in
+	 *
+	 * @param clusterSize
+	 *            The size in squares
+	 */
+	public void setClusterSize(int clusterSize) {
+		if (clusterSize <= 0) {
+			throw new IllegalArgumentException("Cluster size must be positive: " + clusterSize);
+		}
+		this.clusterSize = clusterSize;
+	}
+
+	public void setMowerPlacement(AgentPlacement mowerPlacement) {
+		this.mowerPlacement = mowerPlacement;
+	}
+
+	public void setPuppyPlacement(AgentPlacement puppyPlacement) {
+		this.puppyPlacement = puppyPlacement;
+	}
+
+	public void setStallTurns(int stallTurns) {
+		this.stallTurns = stallTurns;
+	}
+
+	public void setStayPercent(int stayPercent) {
+		this.stayPercent = stayPercent;
+	}
+
+	/**
+	 * Sets the maximum number of turns of the scenario
+	 *
+	 * @param maxTurns
+	 *            The number of turns, or -1 for one turn per lawn square
+	 */
+	public void setMaxTurns(int maxTurns) {
+		this.maxTurns = maxTurns;
+	}
+
+	/**
+	 * If the square of the scenario is a crater
+	 *
+	 * @param x
+	 *            The x coordinate, as in the scenario file
+	 * @param y
+	 *            The y coordinate, as in the scenario file
+	 * @return True or false
+	 */
+	public boolean isCrater(int x, int y) {
+		double chance = (1 - craterClustering) * craterDensity;
+		if (craterClustering > 0) {
+			long cell = (long) (y / clusterSize) * ((width + clusterSize - 1) / clusterSize) + x / clusterSize;
+			if (unit(cellSeed, cell) < craterDensity) {
+				chance += craterClustering;
+			}
+		}
+		return unit(craterSeed, (long) y * width + x) < chance;
+	}
+
+	/**
+	 * Counts the craters of the scenario, one pass over the lawn
+	 *
+	 * @return The number of craters
+	 */
+	public int countCraters() {
+		if (craterDensity == 0) {
+			return 0;
+		}
+		int count = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (isCrater(x, y)) {
+					count += 1;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the scenario in the format read by
+	 * {@link Simulator#initSimulation(java.io.File)}
+	 *
+	 * @param out
+	 *            The writer; flushed, not closed
+	 * @throws IOException
+	 */
+	public void generate(Writer out) throws IOException {
+		SeededRandom random = new SeededRandom(agentSeed);
+		Set<Long> taken = new HashSet<Long>();
+		long[] mowers = place(mowerCount, mowerPlacement, random, taken);
+		long[] puppies = place(puppyCount, puppyPlacement, random, taken);
+
+		writeLine(out, width);
+		writeLine(out, height);
+
+		writeLine(out, mowerCount);
+		writeLine(out, stallTurns);
+		for (long square : mowers) {
+			writeSquare(out, square);
+			out.write(',');
+			out.write(DIRECTIONS[random.nextInt(DIRECTIONS.length)].getName().toLowerCase());
+			out.write('\n');
+		}
+
+		int craterCount = countCraters();
+		writeLine(out, craterCount);
+		if (craterCount > 0) {
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (isCrater(x, y)) {
+						out.write(Integer.toString(x));
+						out.write(',');
+						out.write(Integer.toString(y));
+						out.write('\n');
+					}
+				}
+			}
+		}
+
+		writeLine(out, puppyCount);
+		writeLine(out, stayPercent);
+		for (long square : puppies) {
+			writeSquare(out, square);
+			out.write('\n');
+		}
+
+		writeLine(out, maxTurns < 0 ? width * height : maxTurns);
+		out.write(Long.toString(seed));
+		out.write('\n');
+		out.flush();
+	}
+
+	/**
+	 * Places agents on free squares, and takes the squares
+	 *
+	 * @return The squares, as y * width + x
+	 */
+	private long[] place(int count, AgentPlacement placement, SeededRandom random, Set<Long> taken) {
+		long[] squares = new long[count];
+		int columns = (int) Math.min(width, Math.max(1, Math.ceil(Math.sqrt((double) count * width / height))));
+		int rows = (count + columns - 1) / columns;
+		for (int i = 0; i < count; i++) {
+			long start;
+			if (placement == AgentPlacement.Random) {
+				start = (long) random.nextInt(height) * width + random.nextInt(width);
+			} else if (placement == AgentPlacement.Grid) {
+				long x = (2L * (i % columns) + 1) * width / (2 * columns);
+				long y = Math.min(height - 1, (2L * (i / columns) + 1) * height / (2 * rows));
+				start = y * width + x;
+			} else {
+				start = i == 0 ? 0 : squares[i - 1] + 1;
+			}
+			squares[i] = freeSquare(start, taken);
+			taken.add(squares[i]);
+		}
+		return squares;
+	}
+
+	/**
+	 * Returns the first square from the start, in row order and wrapping around,
+	 * that is neither taken nor a crater
+	 */
+	private long freeSquare(long start, Set<Long> taken) {
+		long lawnSquares = (long) width * height;
+		for (long i = 0; i < lawnSquares; i++) {
+			long square = (start + i) % lawnSquares;
+			if (!taken.contains(square) && !isCrater((int) (square % width), (int) (square / width))) {
+				return square;
+			}
+		}
+		throw new IllegalArgumentException("No free square left for " + (mowerCount + puppyCount) + " agents");
+	}
+
+	/**
+	 * Returns a uniform double in [0, 1) for the index of a hashed stream
+	 */
+	private static double unit(long streamSeed, long index) {
+		return (SeededRandom.mix64(streamSeed + index * GOLDEN_GAMMA) >>> 11) * DOUBLE_UNIT;
+	}
+
+	private void writeSquare(Writer out, long square) throws IOException {
+		out.write(Long.toString(square % width));
+		out.write(',');
+		out.write(Long.toString(square / width));
+	}
+
+	private static void writeLine(Writer out, int value) throws IOException {
+		out.write(Integer.toString(value));
+		out.write('\n');
+	}
+
+	public static void main(String[] args) throws IOException {
+		long seed = 0;
+		int width = 100;
+		int height = 100;
+		int mowers = 1;
+		int puppies = 1;
+		double density = 0;
+		double clustering = 0;
+		int clusterSize = 16;
+		AgentPlacement mowerPlacement = AgentPlacement.Random;
+		AgentPlacement puppyPlacement = AgentPlacement.Random;
+		int stallTurns = 2;
+		int stayPercent = 50;
+		int maxTurns = -1;
+		String file = null;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("--size")) {
+				String[] size = args[++i].split("x");
+				width = Integer.parseInt(size[0]);
+				height = Integer.parseInt(size.length > 1 ? size[1] : size[0]);
+			} else if (args[i].equals("--mowers")) {
+				mowers = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--puppies")) {
+				puppies = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--crater-density")) {
+				density = Double.parseDouble(args[++i]);
+			} else if (args[i].equals("--crater-clustering")) {
+				clustering = Double.parseDouble(args[++i]);
+			} else if (args[i].equals("--cluster-size")) {
+				clusterSize = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--mower-placement")) {
+				mowerPlacement = AgentPlacement.fromName(args[++i]);
+			} else if (args[i].equals("--puppy-placement")) {
+				puppyPlacement = AgentPlacement.fromName(args[++i]);
+			} else if (args[i].equals("--stall-turns")) {
+				stallTurns = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--stay-percent")) {
+				stayPercent = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--max-turns")) {
+				maxTurns = Integer.parseInt(args[++i]);
+			} else if (args[i].startsWith("--")) {
+				System.err.println("Usage: ScenarioGenerator [--seed n] [--size widthxheight] [--mowers n] [--puppies n]"
+						+ " [--crater-density d] [--crater-clustering c] [--cluster-size n]"
+						+ " [--mower-placement random|grid|corner] [--puppy-placement random|grid|corner]"
+						+ " [--stall-turns n] [--stay-percent n] [--max-turns n] [file]");
+				System.exit(1);
+			} else {
+				file = args[i];
+			}
+		}
+
+		ScenarioGenerator generator = new ScenarioGenerator(seed);
+		generator.setSize(width, height);
+		generator.setMowerCount(mowers);
+		generator.setPuppyCount(puppies);
+		generator.setCraterDensity(density);
+		generator.setCraterClustering(clustering);
+		generator.setClusterSize(clusterSize);
+		generator.setMowerPlacement(mowerPlacement);
+		generator.setPuppyPlacement(puppyPlacement);
+		generator.setStallTurns(stallTurns);
+		generator.setStayPercent(stayPercent);
+		generator.setMaxTurns(maxTurns);
+
+		try (OutputStream stream = file == null ? new FileOutputStream(FileDescriptor.out)
+				: new FileOutputStream(file);
+				Writer out = new BufferedWriter(new OutputStreamWriter(stream, "US-ASCII"), 1 << 16)) {
+			generator.generate(out);
+		}
+	}
+}
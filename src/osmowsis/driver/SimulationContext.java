@@ -0,0 +1,190 @@
+package osmowsis.driver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import osmowsis.misc.LawnGrid;
+import osmowsis.misc.OccupancyIndex;
+import osmowsis.misc.PackedLawnGrid;
+import osmowsis.misc.SeededRandom;
+import osmowsis.misc.SharedScanInfoRepository;
+import osmowsis.misc.SharedVisitInfoRepository;
+import osmowsis.misc.Square;
+import osmowsis.misc.SquareType;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.puppy.Puppy;
+
+/**
+ *
+ *
+ * The state of one simulation run: the lawn, the agents on it and the
+ * knowledge repositories the mowers share. Every {@link Simulator} owns its
+ * own context, so independent simulations can run side by side.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class SimulationContext {
+
+	/**
+	 * The lawn landscape
+	 */
+	private LawnGrid lawn;
+
+	/**
+	 * List of mowers
+	 */
+	private List<LawnMower> mowers = new ArrayList<LawnMower>();
+
+	/**
+	 * List of puppies
+	 */
+	private List<Puppy> puppies = new ArrayList<Puppy>();
+
+	/**
+	 * Locations of each mower, the index is the id of the mower (0,1,2...)
+	 */
+	private Square[] mowerLocations;
+
+	/**
+	 * Locations of each puppy, the index is the id of the puppy(0,1,2...)
+	 */
+	private Square[] puppyLocations;
+
+	/**
+	 * Which mower and which puppy is on each occupied square
+	 */
+	private OccupancyIndex occupancy;
+
+	/**
+	 * Scan repository shared by the mowers of this run
+	 */
+	private SharedScanInfoRepository scanInfo;
+
+	/**
+	 * Visit repository shared by the mowers of this run
+	 */
+	private SharedVisitInfoRepository visitInfo;
+
+	/**
+	 * Constructor; every square of the lawn starts as grass
+	 *
+	 * @param width
+	 *            The width of the lawn
+	 * @param height
+	 *            The height of the lawn
+	 * @param mowerCount
+	 *            The number of mowers
+	 * @param puppyCount
+	 *            The number of puppies
+	 */
+	public SimulationContext(int width, int height, int mowerCount, int puppyCount) {
+		lawn = new PackedLawnGrid(width, height, SquareType.Grass);
+		mowerLocations = new Square[mowerCount];
+		puppyLocations = new Square[puppyCount];
+		occupancy = new OccupancyIndex(width, height);
+		scanInfo = new SharedScanInfoRepository(width, height);
+		visitInfo = new SharedVisitInfoRepository(width, height);
+	}
+
+	private SimulationContext() {
+	}
+
+	/**
+	 * Returns a copy of the context. The lawn and the repositories are shared
+	 * copy-on-write with this context, the agents are copied. This context may
+	 * not change while the fork is made.
+	 * 
+	 * @param seedRandom
+	 *            The random to split the puppy random streams of the copy from, or
+	 *            null to continue the streams of this context's puppies
+	 * @return The forked {@link SimulationContext}
+	 */
+	public SimulationContext fork(SeededRandom seedRandom) {
+		SimulationContext copy = new SimulationContext();
+		copy.lawn = lawn.fork();
+		copy.scanInfo = scanInfo.fork();
+		copy.visitInfo = visitInfo.fork();
+		copy.mowerLocations = mowerLocations.clone();
+		copy.puppyLocations = puppyLocations.clone();
+		copy.occupancy = occupancy.copy();
+
+		for (LawnMower mower : mowers) {
+			copy.mowers.add(mower.fork(copy.scanInfo, copy.visitInfo));
+		}
+		for (Puppy pup : puppies) {
+			Puppy pupCopy = pup.fork(seedRandom == null ? null : seedRandom.split());
+			pupCopy.setLawn(copy.lawn);
+			copy.puppies.add(pupCopy);
+		}
+		return copy;
+	}
+
+	/**
+	 * Adds a mower at its starting position
+	 *
+	 * @param mower
+	 *            The {@link LawnMower}
+	 * @param position
+	 *            The starting position
+	 */
+	public void addMower(LawnMower mower, Square position) {
+		mowers.add(mower);
+		mowerLocations[mower.getId()] = position;
+		occupancy.placeMower(mower.getId(), position.getX(), position.getY());
+	}
+
+	/**
+	 * Adds a puppy at its starting position
+	 *
+	 * @param pup
+	 *            The {@link Puppy}
+	 * @param position
+	 *            The starting position
+	 */
+	public void addPuppy(Puppy pup, Square position) {
+		puppies.add(pup);
+		puppyLocations[pup.getId()] = position;
+		occupancy.placePuppy(pup.getId(), position.getX(), position.getY());
+	}
+
+	public LawnGrid getLawn() {
+		return lawn;
+	}
+
+	public int getLawnWidth() {
+		return lawn.getWidth();
+	}
+
+	public int getLawnHeight() {
+		return lawn.getHeight();
+	}
+
+	public List<LawnMower> getMowers() {
+		return mowers;
+	}
+
+	public List<Puppy> getPuppies() {
+		return puppies;
+	}
+
+	public Square[] getMowerLocations() {
+		return mowerLocations;
+	}
+
+	public Square[] getPuppyLocations() {
+		return puppyLocations;
+	}
+
+	public OccupancyIndex getOccupancy() {
+		return occupancy;
+	}
+
+	public SharedScanInfoRepository getScanInfo() {
+		return scanInfo;
+	}
+
+	public SharedVisitInfoRepository getVisitInfo() {
+		return visitInfo;
+	}
+}
@@ -0,0 +1,143 @@
+package osmowsis.driver;
+
+import java.util.List;
+
+import osmowsis.gui.CanvasSquareState;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.puppy.Puppy;
+
+/**
+ *
+ *
+ * The view the {@link Simulator} paints the simulation on. A simulator
+ * without a view runs headless.
+ *
+ * @author Laura  Wang
+ *
+ */
+public interface SimulationView {
+
+	/**
+	 * Inits the view
+	 *
+	 * @param sim
+	 *            The {@link Simulator} being viewed
+	 * @param width
+	 *            The width of the lawn
+	 * @param height
+	 *            The height of the lawn
+	 * @param craters
+	 *            The list of crater positions
+	 * @param mowers
+	 *            The list of mowers (each with initial position)
+	 * @param puppies
+	 *            The list of puppies (each with initial position)
+	 * @param grassCount
+	 *            Number of grass squares on the lawn
+	 * @param maxTurns
+	 *            The maximum number of turns
+	 */
+	void initView(Simulator sim, int width, int height, List<String> craters, List<LawnMower> mowers,
+			List<Puppy> puppies, int grassCount, int maxTurns);
+
+	/**
+	 * Updates the state of a lawn square and repaints it
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param newState
+	 *            The new {@link CanvasSquareState}
+	 * @param active
+	 *            If the square is to be highlighted or not
+	 */
+	void updateCanvasSquare(int x, int y, CanvasSquareState newState, boolean active);
+
+	/**
+	 * Uses the mower highlight for the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	void setMowerActiveColor(int x, int y);
+
+	/**
+	 * Uses the puppy highlight for the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	void setPuppyActiveColor(int x, int y);
+
+	/**
+	 * Sets the mower text of the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param text
+	 *            The text
+	 */
+	void setMowerSquareText(int x, int y, String text);
+
+	/**
+	 * Sets the puppy text of the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param text
+	 *            The text
+	 */
+	void setPuppySquareText(int x, int y, String text);
+
+	/**
+	 * Forces a repaint of the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	void repaint(int x, int y);
+
+	/**
+	 * Highlights or un-highlights the lawn square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param active
+	 *            If the square is to be highlighted or not
+	 */
+	void setActive(int x, int y, boolean active);
+
+	/**
+	 * Updates the simulation status
+	 *
+	 * @param mowerStatuses
+	 *            The crashed, stalled and turned-off status of the mowers
+	 * @param pollMower
+	 *            Whether or not simulator is polling a mower
+	 * @param mowerPollingIndex
+	 *            The current polling index for mower
+	 * @param puppyPollingIndex
+	 *            The current polling index for puppy
+	 * @param grassCutSoFar
+	 *            Number of grass squares cut so far
+	 * @param grassRemaining
+	 *            Number of grass squares remaining
+	 * @param turnsRemaining
+	 *            Turns remaining
+	 */
+	void updateStatus(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex,
+			int puppyPollingIndex, int grassCutSoFar, int grassRemaining, int turnsRemaining);
+}
@@ -1,24 +1,39 @@
 package osmowsis.driver;
 
-import java.awt.Color;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 
-import javax.swing.Timer;
+import jdk.jfr.EventType;
 
 import osmowsis.gui.CanvasSquareState;
-import osmowsis.gui.LawnCanvasJPanel;
-import osmowsis.gui.StatusPanel;
+import osmowsis.metrics.MowerDecisionEvent;
+import osmowsis.metrics.MowerPollEvent;
+import osmowsis.metrics.PollEvent;
+import osmowsis.metrics.PuppyPollEvent;
+import osmowsis.metrics.SimulationMetrics;
+import osmowsis.metrics.TimedPhase;
+import osmowsis.metrics.TimedSimulationView;
+import osmowsis.metrics.TurnEvent;
+import osmowsis.misc.ChunkedCodeGrid;
 import osmowsis.misc.Direction;
+import osmowsis.misc.LawnGrid;
+import osmowsis.misc.OccupancyIndex;
+import osmowsis.misc.ScanResult;
+import osmowsis.misc.SeededRandom;
+import osmowsis.misc.SnapshotInput;
+import osmowsis.misc.SnapshotOutput;
 import osmowsis.misc.Square;
 import osmowsis.misc.SquareType;
 import osmowsis.model.lawnmower.LawnMower;
@@ -38,22 +53,35 @@ import osmowsis.model.puppy.PuppyActionType;
  */
 public class Simulator {
 
-	private static Simulator sim;
+	/**
+	 * First int of a snapshot ("OSMS")
+	 */
+	private static final int SNAPSHOT_MAGIC = 0x4f534d53;
 
 	/**
-	 * LawnLayout matrix
+	 * Version of the snapshot format; run recordings keep it, since they replay
+	 * from snapshots
 	 */
-	private SquareType[][] lawnLayout;
+	static final int SNAPSHOT_VERSION = 6;
 
 	/**
-	 * Height of the lawn
+	 * The flight recorder event types; an event is only created while its type is
+	 * enabled in a recording, so polling allocates nothing for them otherwise
 	 */
-	private int lawnHeight;
+	private static final EventType POLL_EVENTS = EventType.getEventType(PollEvent.class);
+
+	private static final EventType MOWER_POLL_EVENTS = EventType.getEventType(MowerPollEvent.class);
+
+	private static final EventType PUPPY_POLL_EVENTS = EventType.getEventType(PuppyPollEvent.class);
+
+	private static final EventType MOWER_DECISION_EVENTS = EventType.getEventType(MowerDecisionEvent.class);
+
+	private static final EventType TURN_EVENTS = EventType.getEventType(TurnEvent.class);
 
 	/**
-	 * Width of the lawn
+	 * The lawn, agents and knowledge repositories of this run
 	 */
-	private int lawnWidth;
+	private SimulationContext context;
 
 	/**
 	 * Number of craters
@@ -61,9 +89,10 @@ public class Simulator {
 	private int craterCount;
 
 	/**
-	 * Number of grass cut so far
+	 * Number of grass cut so far; mowers on different tiles of a partitioned turn
+	 * cut concurrently
 	 */
-	private int grassCutCount;
+	private AtomicInteger grassCutCount = new AtomicInteger();
 
 	/**
 	 * Number of turns
@@ -71,95 +100,236 @@ public class Simulator {
 	private int turnCount;
 
 	/**
-	 * List of mowers
+	 * Crashed, stalled and turned-off status of the mowers
 	 */
-	private List<LawnMower> mowers = new ArrayList<LawnMower>();
+	private MowerStatusTracker mowerStatuses;
 
 	/**
-	 * List of puppies
+	 * Current polling index for mower (etc 0, 1, 2)
 	 */
-	private List<Puppy> puppies = new ArrayList<Puppy>();
+	private int mowerPollingIndex = 0;
 
 	/**
-	 * Locations of each mower, the index is the id of the mower (0,1,2...)
+	 * The current polling index for puppy (etc 0, 1, 2)
 	 */
-	private Square[] mowerLocations;
+	private int puppyPollingIndex = 0;
 
 	/**
-	 * Locations of each puppy, the index is the id of the puppy(0,1,2...)
+	 * Previous polling index for mower(etc which mower was polled previously)
 	 */
-	private Square[] puppyLocations;
+	private int previousMowerPollingIndex = -1;
 
 	/**
-	 * Ids of the crashed mowers
+	 * Previous polling index for puppy (etc which puppy was polled previously)
 	 */
-	private List<Integer> crashedMowerIds = new ArrayList<Integer>();
+	private int previousPuppyPollingIndex = -1;
+
+	private int maxTurns = 300;
 
 	/**
-	 * Ids of the stalled mowers
+	 * In any given poll, whether or not to poll the mower or puppy
 	 */
-	private List<Integer> stalledMowerIds = new ArrayList<Integer>();
+	private boolean pollMower = true;
 
 	/**
-	 * Ids of the turned-off mowers
+	 * If the simulation has ended
 	 */
-	private List<Integer> poweredOffMowerIds = new ArrayList<Integer>();
+	private boolean ended;
 
 	/**
-	 * Current polling index for mower (etc 0, 1, 2)
+	 * The seed of the puppy random streams; null to take it from the scenario
+	 * file, or a random one when the file has none
 	 */
-	private int mowerPollingIndex = 0;
+	private Long seed;
 
 	/**
-	 * The current polling index for puppy (etc 0, 1, 2)
+	 * If the puppies of a turn decide in parallel at the start of the puppy phase
 	 */
-	private int puppyPollingIndex = 0;
+	private boolean parallelPuppies;
 
 	/**
-	 * Previous polling index for mower(etc which mower was polled previously)
+	 * The actions the puppies decided at the start of the current puppy phase,
+	 * by puppy index; only used with parallel puppies
 	 */
-	private int previousMowerPollingIndex = -1;
+	private PuppyAction[] pendingPuppyActions;
 
 	/**
-	 * Previous polling index for puppy (etc which puppy was polled previously)
+	 * If the mowers of a turn decide simultaneously at the start of the mower
+	 * phase
 	 */
-	private int previousPuppyPollingIndex = -1;
+	private boolean simultaneousTurns;
 
 	/**
-	 * Number of stalled turns in mower-mower collision
+	 * The actions the mowers decided at the start of the current mower phase, by
+	 * mower index; null for a mower that was not pollable then. Only used with
+	 * simultaneous turns.
 	 */
-	private int stallTurns;
+	private MowerAction[] pendingMowerActions;
 
 	/**
-	 * How many remaining stalled turns are there for any stalled map (in
-	 * mower-mower case)
+	 * The width and height of the tiles of a partitioned turn; 0 when turns are
+	 * not partitioned
 	 */
-	private Map<Integer, Integer> stalledTurnsRemainingByMower = new HashMap<Integer, Integer>();
+	private int tileSize;
 
-	private int maxTurns = 300;
+	/**
+	 * The tiles of the lawn, created on the first partitioned phase
+	 */
+	private LawnTiling tiling;
 
 	/**
-	 * In any given poll, whether or not to poll the mower or puppy
+	 * The view to paint the simulation on; null when running headless
 	 */
-	private boolean pollMower = true;
+	private SimulationView view;
+
+	/**
+	 * The protocol log of this run
+	 */
+	private ProtocolLog log = new ProtocolLog(System.out);
+
+	/**
+	 * The metrics to record into; null when not measured
+	 */
+	private SimulationMetrics metrics;
+
+	/**
+	 * The flight recorder event of the turn in progress, begun at its first poll;
+	 * null when turn events are not recorded
+	 */
+	private TurnEvent turnEvent;
+
+	/**
+	 * Sets the view to paint the simulation on. Must be called before
+	 * {@link #initSimulation(String)}; without a view the simulation runs headless.
+	 * The view may be detached (null) while polls run and re-attached later; use
+	 * {@link #paintState(SimulationView)} to bring it up to date.
+	 * 
+	 * @param view
+	 *            The {@link SimulationView}, or null
+	 */
+	public synchronized void setView(SimulationView view) {
+		this.view = view != null && metrics != null ? new TimedSimulationView(view, metrics) : view;
+	}
+
+	/**
+	 * Sets the metrics to record the latency of the poll phases and the counters
+	 * of the run into; calls on the view are timed from the next
+	 * {@link #setView(SimulationView)}. Without metrics nothing is measured.
+	 * 
+	 * @param metrics
+	 *            The {@link SimulationMetrics}, or null
+	 */
+	public synchronized void setMetrics(SimulationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Sets the protocol log of this run; the default log prints on
+	 * {@link System#out}
+	 * 
+	 * @param log
+	 *            The {@link ProtocolLog}
+	 */
+	public void setProtocolLog(ProtocolLog log) {
+		this.log = log;
+	}
+
+	/**
+	 * Sets the seed of the puppy random streams, overriding the seed of the
+	 * scenario file. Must be called before {@link #initSimulation(String)}.
+	 * 
+	 * @param seed
+	 *            The seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
 
 	/**
-	 * Gets the singleton instance of the Simulator
+	 * Sets if the puppies decide in parallel. When set, every puppy decides its
+	 * action at the start of the puppy phase of a turn, all against the lawn as it
+	 * is then, and the actions are applied in puppy order; a puppy whose
+	 * destination has been taken by an earlier puppy of the phase stays instead.
+	 * The results depend on the seed only, not on the number of threads. Off by
+	 * default, where every puppy sees the moves of the puppies before it. Must be
+	 * called before {@link #initSimulation(String)}; a restored snapshot keeps the
+	 * setting it was saved with.
 	 * 
-	 * @return
+	 * @param parallelPuppies
+	 *            True to decide in parallel
 	 */
-	public static Simulator getInstance() {
-		if (sim == null) {
-			sim = new Simulator();
+	public void setParallelPuppies(boolean parallelPuppies) {
+		this.parallelPuppies = parallelPuppies;
+	}
+
+	/**
+	 * Sets if the mowers take simultaneous turns. When set, every pollable mower
+	 * decides its action at the start of the mower phase of a turn, in parallel and
+	 * all from the state the turn started with; the actions are then committed in
+	 * mower order, with the moves, collisions and stalls resolved as the mowers
+	 * are polled in the default rules. Off by default, where every mower sees the
+	 * scans and moves of the mowers before it. Can be combined with
+	 * {@link #setParallelPuppies(boolean)}. Must be called before
+	 * {@link #initSimulation(String)}; a restored snapshot keeps the setting it was
+	 * saved with.
+	 * 
+	 * @param simultaneousTurns
+	 *            True for simultaneous turns
+	 */
+	public void setSimultaneousTurns(boolean simultaneousTurns) {
+		this.simultaneousTurns = simultaneousTurns;
+	}
+
+	/**
+	 * Sets the size of the tiles the lawn is split into, to commit the agents of a
+	 * turn on several threads. Every mower decides as in
+	 * {@link #setSimultaneousTurns(boolean)} and every puppy as in
+	 * {@link #setParallelPuppies(boolean)}; then the agents of each tile are
+	 * committed in order, the tiles in parallel, and the agents near a border
+	 * between tiles (the halo) are committed last, in order. Each poll runs a whole
+	 * mower or puppy phase, and the protocol lines come tile by tile, then the
+	 * halo. The results do not depend on the number of threads; with a view
+	 * attached, the tiles are committed one after the other on the calling thread.
+	 * Must be called before {@link #initSimulation(String)}; a restored snapshot
+	 * keeps the setting it was saved with.
+	 * 
+	 * @param tileSize
+	 *            The width and height of a tile, a multiple of
+	 *            {@link ChunkedCodeGrid#CHUNK_SIZE}, or 0 to not partition turns
+	 */
+	public void setTileSize(int tileSize) {
+		if (tileSize < 0 || tileSize % ChunkedCodeGrid.CHUNK_SIZE != 0) {
+			throw new IllegalArgumentException(
+					"Tile size must be a multiple of " + ChunkedCodeGrid.CHUNK_SIZE + ": " + tileSize);
 		}
-		return sim;
+		this.tileSize = tileSize;
+		tiling = null;
+	}
+
+	/**
+	 * Returns the seed the puppy random streams of this run were created from
+	 * 
+	 * @return The seed, or null before {@link #initSimulation(String)}
+	 */
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the lawn, agents and knowledge repositories of this run
+	 * 
+	 * @return The {@link SimulationContext}, or null before
+	 *         {@link #initSimulation(String)}
+	 */
+	public SimulationContext getContext() {
+		return context;
 	}
 
 	/**
 	 * Increment the grass cut count
 	 */
-	public synchronized void incrementGrassCountCount() {
-		grassCutCount += 1;
+	public void incrementGrassCountCount() {
+		grassCutCount.incrementAndGet();
 	}
 
 	/**
@@ -167,6 +337,18 @@ public class Simulator {
 	 */
 	public synchronized void incrementTurnCount() {
 		turnCount += 1;
+		if (metrics != null) {
+			metrics.turn();
+		}
+		if (turnEvent != null) {
+			if (turnEvent.shouldCommit()) {
+				turnEvent.turn = turnCount;
+				turnEvent.grassCut = grassCutCount.get();
+				turnEvent.commit();
+			}
+			turnEvent = null;
+		}
+		log.turnEnded(turnCount);
 	}
 
 	/**
@@ -178,132 +360,477 @@ public class Simulator {
 	 * @throws IOException
 	 */
 	public void initSimulation(String file) throws NumberFormatException, IOException {
-		String filePath = System.getProperty("user.dir") + File.separator + file;
-		FileInputStream stream = new FileInputStream(filePath);
+		initSimulation(new File(System.getProperty("user.dir") + File.separator + file));
+	}
+
+	/**
+	 * Init the simulation
+	 * 
+	 * @param file
+	 *            The input file
+	 * @throws NumberFormatException
+	 * @throws IOException
+	 */
+	public void initSimulation(File file) throws NumberFormatException, IOException {
+		FileInputStream stream = new FileInputStream(file);
 		BufferedReader reader = new BufferedReader(new InputStreamReader(stream));
 
 		// width & height
 		int width = Integer.parseInt(reader.readLine().trim());
 		int height = Integer.parseInt(reader.readLine().trim());
 
-		// Simulator sets width & height of the lawn
-		Simulator.getInstance().setWidthHeight(width, height);
+		// mowers
+		int lawnMowerCount = Integer.parseInt(reader.readLine().trim());
+		grassCutCount.set(lawnMowerCount);
+		int stallTurns = Integer.parseInt(reader.readLine().trim());
+		mowerStatuses = new MowerStatusTracker(lawnMowerCount, stallTurns);
 
-		for (int i = 0; i < height; i++) {
-			for (int j = 0; j < width; j++) {
-				lawnLayout[i][j] = SquareType.Grass;
-			}
+		List<String> mowerInfos = new ArrayList<String>();
+		for (int i = 1; i <= lawnMowerCount; i++) {
+			mowerInfos.add(reader.readLine());
 		}
 
-		// init the mowers
-		int lawnMowerCount = Integer.parseInt(reader.readLine().trim());
-		grassCutCount = lawnMowerCount;
-		mowerLocations = new Square[lawnMowerCount];
+		// get crater positions
+		int craterCount = Integer.parseInt(reader.readLine().trim());
+
+		List<String> craters = new ArrayList<String>();
+		for (int i = 1; i <= craterCount; i++) {
+			craters.add(reader.readLine());
+		}
 
-		stallTurns = Integer.parseInt(reader.readLine().trim());
+		// puppies
+		int puppyNumber = Integer.parseInt(reader.readLine().trim());
+		int stayPercentage = Integer.parseInt(reader.readLine().trim());
+
+		List<String> puppyInfos = new ArrayList<String>();
+		for (int i = 1; i <= puppyNumber; i++) {
+			puppyInfos.add(reader.readLine());
+		}
+
+		maxTurns = Integer.parseInt(reader.readLine().trim());
 
+		// optional seed of the puppy random streams
+		String seedLine = reader.readLine();
+		reader.close();
+
+		if (seed == null) {
+			if (seedLine != null && !seedLine.trim().isEmpty()) {
+				seed = Long.parseLong(seedLine.trim());
+			} else {
+				seed = new SplittableRandom().nextLong();
+			}
+		}
+		SeededRandom seedRandom = new SeededRandom(seed);
+
+		context = new SimulationContext(width, height, lawnMowerCount, puppyNumber);
+		LawnGrid lawn = context.getLawn();
+
+		// init the mowers
 		for (int i = 1; i <= lawnMowerCount; i++) {
-			String mowerInfo = reader.readLine();
-			String[] info = mowerInfo.split(",");
+			String[] info = mowerInfos.get(i - 1).split(",");
 			int x = Integer.parseInt(info[0]);
 			int y = convertY(Integer.parseInt(info[1]), height);
 			String dir = info[2];
 
 			// Initialize LawnMower with only the initial direction
 			Square mowerPosition = new Square(x, y);
-			LawnMower mower = new LawnMower(i - 1, Direction.getDirection(dir), mowerPosition);
-			mowers.add(mower);
-			mowerLocations[i - 1] = mowerPosition;
-			lawnLayout[y][x] = SquareType.Mower;
-
-		}
-
-		// get crater positions
-		int craterCount = Integer.parseInt(reader.readLine());
-
-		List<String> craters = new ArrayList<String>();
-		for (int i = 1; i <= craterCount; i++) {
-			craters.add(reader.readLine());
+			LawnMower mower = new LawnMower(i - 1, Direction.getDirection(dir), mowerPosition, context.getScanInfo(),
+					context.getVisitInfo());
+			context.addMower(mower, mowerPosition);
+			lawn.set(x, y, SquareType.Mower);
 		}
 
 		initCraters(width, height, craterCount, craters);
 
 		// init puppies
-		int puppyNumber = Integer.parseInt(reader.readLine().trim());
-		puppyLocations = new Square[puppyNumber];
-		int stayPercentage = Integer.parseInt(reader.readLine().trim());
 		for (int i = 1; i <= puppyNumber; i++) {
-			String pupInfo = reader.readLine();
-			String[] info = pupInfo.split(",");
+			String[] info = puppyInfos.get(i - 1).split(",");
 			int x = Integer.parseInt(info[0]);
-			int y = convertY(Integer.parseInt(info[1]), lawnHeight);
+			int y = convertY(Integer.parseInt(info[1]), height);
 			Square square = new Square(x, y);
-			Puppy pup = new Puppy(i - 1, stayPercentage, square);
-			puppies.add(pup);
-			puppyLocations[i - 1] = square;
-			lawnLayout[y][x] = SquareType.Puppy_grass;
+			Puppy pup = new Puppy(i - 1, stayPercentage, square, seedRandom.split());
+			context.addPuppy(pup, square);
+			lawn.set(x, y, SquareType.Puppy_grass);
 		}
 
-		for (Puppy pup : puppies) {
-			pup.setLawn(lawnLayout);
+		for (Puppy pup : context.getPuppies()) {
+			pup.setLawn(lawn);
 		}
 
-		maxTurns = Integer.parseInt(reader.readLine().trim());
+		if (view != null) {
+			int grassCount = height * width - craterCount;
+			view.initView(this, width, height, craters, context.getMowers(), context.getPuppies(), grassCount,
+					maxTurns);
+		}
+	}
 
-		LawnCanvasJPanel.getInstance().initCanvas(width, height, craters, mowers, puppies);
+	/**
+	 * Forks the simulation: returns a simulator that continues from the current
+	 * state, with the puppies continuing their random streams. The fork shares the
+	 * lawn and the repositories copy-on-write, so it is cheap, and it runs
+	 * independently of this simulator (on another thread if needed). The fork has
+	 * no view and no protocol log until they are set.
+	 * 
+	 * @return The forked {@link Simulator}
+	 */
+	public synchronized Simulator fork() {
+		return fork(null);
+	}
 
-		int grassCount = lawnHeight * lawnWidth - craterCount;
-		StatusPanel.getInstance().initStatusPanel(mowers, puppies, grassCount, maxTurns);
-		reader.close();
+	/**
+	 * Forks the simulation like {@link #fork()}, with new puppy random streams
+	 * split from the given seed
+	 * 
+	 * @param seed
+	 *            The seed of the fork
+	 * @return The forked {@link Simulator}
+	 */
+	public synchronized Simulator fork(long seed) {
+		return fork(Long.valueOf(seed));
+	}
 
-		// timer to update the status panel
-		Timer simpleTimer = new Timer(5, new ActionListener() {
+	private Simulator fork(Long forkSeed) {
+		Simulator copy = new Simulator();
+		copy.log = new ProtocolLog();
+		copy.context = context.fork(forkSeed == null ? null : new SeededRandom(forkSeed));
+		copy.mowerStatuses = mowerStatuses.copy();
+		copy.craterCount = craterCount;
+		copy.grassCutCount.set(grassCutCount.get());
+		copy.turnCount = turnCount;
+		copy.maxTurns = maxTurns;
+		copy.mowerPollingIndex = mowerPollingIndex;
+		copy.puppyPollingIndex = puppyPollingIndex;
+		copy.previousMowerPollingIndex = previousMowerPollingIndex;
+		copy.previousPuppyPollingIndex = previousPuppyPollingIndex;
+		copy.pollMower = pollMower;
+		copy.ended = ended;
+		copy.seed = forkSeed == null ? seed : forkSeed;
+		copy.parallelPuppies = parallelPuppies;
+		if (pendingPuppyActions != null) {
+			copy.pendingPuppyActions = pendingPuppyActions.clone();
+		}
+		copy.simultaneousTurns = simultaneousTurns;
+		copy.tileSize = tileSize;
+		copy.tiling = tiling;
+		if (pendingMowerActions != null) {
+			copy.pendingMowerActions = pendingMowerActions.clone();
+		}
+		return copy;
+	}
 
-			@Override
-			public void actionPerformed(ActionEvent arg0) {
-				StatusPanel  statusPanel = StatusPanel.getInstance();
-				statusPanel.updateObjectsPanel(crashedMowerIds, stalledMowerIds,
-						stalledTurnsRemainingByMower, pollMower, mowerPollingIndex, puppyPollingIndex);
-				
-				int grassRemaining = lawnHeight * lawnWidth - craterCount - grassCutCount;
-				statusPanel.updateSummaryPanel(grassCutCount, grassRemaining, maxTurns - turnCount);
+	/**
+	 * Writes a snapshot of the complete simulation state: the counters and polling
+	 * position, the lawn, the mower statuses, every mower and puppy, and the
+	 * shared repositories
+	 * 
+	 * @param channel
+	 *            The channel to write to
+	 * @throws IOException
+	 */
+	public synchronized void writeSnapshot(WritableByteChannel channel) throws IOException {
+		SnapshotOutput out = new SnapshotOutput(channel);
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeInt(SNAPSHOT_VERSION);
+
+		out.writeInt(context.getLawnWidth());
+		out.writeInt(context.getLawnHeight());
+		out.writeInt(context.getMowers().size());
+		out.writeInt(context.getPuppies().size());
+		out.writeInt(mowerStatuses.getStallTurns());
+		out.writeInt(craterCount);
+		out.writeInt(grassCutCount.get());
+		out.writeInt(turnCount);
+		out.writeInt(maxTurns);
+		out.writeInt(mowerPollingIndex);
+		out.writeInt(puppyPollingIndex);
+		out.writeInt(previousMowerPollingIndex);
+		out.writeInt(previousPuppyPollingIndex);
+		out.writeBoolean(pollMower);
+		out.writeBoolean(ended);
+		out.writeLong(seed);
+		out.writeBoolean(parallelPuppies);
+		if (parallelPuppies && puppyPollingIndex > 0) {
+			// the rest of the phase applies actions decided at its start
+			for (int i = puppyPollingIndex; i < pendingPuppyActions.length; i++) {
+				out.writeByte(pendingPuppyActions[i].getCode());
+			}
+		}
+		out.writeInt(tileSize);
+		out.writeBoolean(simultaneousTurns);
+		if (simultaneousTurns && pollMower && mowerPollingIndex > 0) {
+			for (int i = mowerPollingIndex; i < pendingMowerActions.length; i++) {
+				MowerAction act = pendingMowerActions[i];
+				out.writeByte(act == null ? -1 : act.getCode());
 			}
+		}
 
-		});
+		context.getLawn().writeSnapshot(out);
+		mowerStatuses.writeSnapshot(out);
+
+		for (LawnMower mower : context.getMowers()) {
+			mower.writeSnapshot(out);
+			Square location = context.getMowerLocations()[mower.getId()];
+			out.writeInt(location.getX());
+			out.writeInt(location.getY());
+		}
+		for (Puppy pup : context.getPuppies()) {
+			pup.writeSnapshot(out);
+		}
+
+		context.getScanInfo().writeSnapshot(out);
+		context.getVisitInfo().writeSnapshot(out);
+		out.flush();
+	}
+
+	/**
+	 * Restores the simulation state from a snapshot written by
+	 * {@link #writeSnapshot(WritableByteChannel)}, in place of
+	 * {@link #initSimulation(String)}
+	 * 
+	 * @param channel
+	 *            The channel to read from
+	 * @throws IOException
+	 *             If the snapshot is not readable or of another version
+	 */
+	public synchronized void restoreSnapshot(ReadableByteChannel channel) throws IOException {
+		SnapshotInput in = new SnapshotInput(channel);
+		if (in.readInt() != SNAPSHOT_MAGIC) {
+			throw new IOException("Not a simulation snapshot");
+		}
+		int version = in.readInt();
+		if (version != SNAPSHOT_VERSION) {
+			throw new IOException("Unsupported snapshot version " + version);
+		}
+
+		int width = in.readInt();
+		int height = in.readInt();
+		int mowerCount = in.readInt();
+		int puppyCount = in.readInt();
+		int stallTurns = in.readInt();
+		craterCount = in.readInt();
+		grassCutCount.set(in.readInt());
+		turnCount = in.readInt();
+		maxTurns = in.readInt();
+		mowerPollingIndex = in.readInt();
+		puppyPollingIndex = in.readInt();
+		previousMowerPollingIndex = in.readInt();
+		previousPuppyPollingIndex = in.readInt();
+		pollMower = in.readBoolean();
+		ended = in.readBoolean();
+		seed = in.readLong();
+		parallelPuppies = in.readBoolean();
+		pendingPuppyActions = parallelPuppies ? new PuppyAction[puppyCount] : null;
+		if (parallelPuppies && puppyPollingIndex > 0) {
+			for (int i = puppyPollingIndex; i < puppyCount; i++) {
+				pendingPuppyActions[i] = PuppyAction.fromCode(in.readByte());
+			}
+		}
+		tileSize = in.readInt();
+		tiling = null;
+		simultaneousTurns = in.readBoolean();
+		pendingMowerActions = simultaneousTurns ? new MowerAction[mowerCount] : null;
+		if (simultaneousTurns && pollMower && mowerPollingIndex > 0) {
+			for (int i = mowerPollingIndex; i < mowerCount; i++) {
+				int code = in.readByte();
+				pendingMowerActions[i] = code < 0 ? null : MowerAction.fromCode(code);
+			}
+		}
+
+		context = new SimulationContext(width, height, mowerCount, puppyCount);
+		LawnGrid lawn = context.getLawn();
+		lawn.readSnapshot(in);
+
+		mowerStatuses = new MowerStatusTracker(mowerCount, stallTurns);
+		mowerStatuses.readSnapshot(in);
+
+		for (int i = 0; i < mowerCount; i++) {
+			LawnMower mower = LawnMower.readSnapshot(in, context.getScanInfo(), context.getVisitInfo());
+			int x = in.readInt();
+			int y = in.readInt();
+			context.addMower(mower, new Square(x, y));
+		}
+		for (int i = 0; i < puppyCount; i++) {
+			Puppy pup = Puppy.readSnapshot(in);
+			pup.setLawn(lawn);
+			context.addPuppy(pup, pup.currentPostion());
+		}
+
+		context.getScanInfo().readSnapshot(in);
+		context.getVisitInfo().readSnapshot(in);
+
+		// crashed mowers are no longer on the lawn; a live mower may have moved onto
+		// the square since
+		OccupancyIndex occupancy = context.getOccupancy();
+		for (LawnMower mower : context.getMowers()) {
+			Square location = context.getMowerLocations()[mower.getId()];
+			if (mowerStatuses.isCrashed(mower.getId())
+					&& occupancy.mowerAt(location.getX(), location.getY()) == mower.getId()) {
+				occupancy.removeMower(location.getX(), location.getY());
+			}
+		}
+		for (LawnMower mower : context.getMowers()) {
+			Square location = context.getMowerLocations()[mower.getId()];
+			if (!mowerStatuses.isCrashed(mower.getId())) {
+				occupancy.placeMower(mower.getId(), location.getX(), location.getY());
+			}
+		}
+
+		if (view != null) {
+			List<String> craters = new ArrayList<String>();
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (lawn.get(x, y) == SquareType.Crater) {
+						craters.add(x + "," + convertY(y, height));
+					}
+				}
+			}
+			int grassCount = height * width - craterCount;
+			view.initView(this, width, height, craters, context.getMowers(), context.getPuppies(), grassCount,
+					maxTurns);
+			paintState(view);
+		}
+	}
+
+	/**
+	 * Publishes the current simulation status to the view
+	 */
+	public synchronized void publishStatus() {
+		if (view != null) {
+			publishStatus(view);
+		}
+	}
+
+	private void publishStatus(SimulationView target) {
+		int grassRemaining = context.getLawnHeight() * context.getLawnWidth() - craterCount - grassCutCount.get();
+		target.updateStatus(mowerStatuses, pollMower, mowerPollingIndex, puppyPollingIndex, grassCutCount.get(),
+				grassRemaining, maxTurns - turnCount);
+	}
+
+	/**
+	 * Paints the whole current state (every lawn square and the status) on a view.
+	 * Used to bring a view up to date after running polls without it.
+	 * 
+	 * @param target
+	 *            The {@link SimulationView} to paint on
+	 */
+	public synchronized void paintState(SimulationView target) {
+		LawnGrid lawn = context.getLawn();
+		OccupancyIndex occupancy = context.getOccupancy();
+
+		for (int y = 0; y < lawn.getHeight(); y++) {
+			for (int x = 0; x < lawn.getWidth(); x++) {
+				SquareType type = lawn.get(x, y);
+				String mowerDirection = null;
+
+				int mowerId = occupancy.mowerAt(x, y);
+				if (mowerId != OccupancyIndex.NONE) {
+					target.setMowerSquareText(x, y, (mowerId + 1) + "");
+					mowerDirection = context.getMowers().get(mowerId).currentDirection().getName();
+				}
+				int puppyId = occupancy.puppyAt(x, y);
+				if (puppyId != OccupancyIndex.NONE) {
+					target.setPuppySquareText(x, y, (puppyId + 1) + "");
+				}
+
+				CanvasSquareState state;
+				if (type == SquareType.Crater) {
+					state = CanvasSquareState.Crater;
+				} else if (type == SquareType.Empty) {
+					state = CanvasSquareState.Empty;
+				} else if (type == SquareType.Mower) {
+					state = CanvasSquareState.valueOf("Mower" + mowerDirection);
+				} else if (type == SquareType.Puppy_grass) {
+					state = CanvasSquareState.PuppyGrass;
+				} else if (type == SquareType.Puppy_empty) {
+					state = CanvasSquareState.Puppy;
+				} else if (type == SquareType.Puppy_mower) {
+					state = CanvasSquareState.valueOf("PuppyMower" + mowerDirection);
+				} else {
+					state = CanvasSquareState.Grass;
+				}
+				target.updateCanvasSquare(x, y, state, false);
+			}
+		}
+
+		publishStatus(target);
+	}
 
-		simpleTimer.start();
+	/**
+	 * Runs simulation polls until the simulation ends or the given number of
+	 * polls has been run
+	 * 
+	 * @param polls
+	 *            The maximum number of polls to run
+	 * @return If the simulation has ended
+	 */
+	public synchronized boolean runPolls(int polls) {
+		for (int i = 0; i < polls && !ended; i++) {
+			run();
+		}
+		return ended;
+	}
+
+	/**
+	 * Runs simulation polls until the simulation ends; the final report is printed
+	 * at the end
+	 */
+	public synchronized void runToCompletion() {
+		while (!run()) {
+			// run until the simulation ends
+		}
 	}
 
 	/**
 	 * Run one simulation poll
 	 * 
-	 * @return
+	 * @return If the simulation has ended; once ended, further calls do nothing
 	 */
 	public synchronized boolean run() {
 
+		if (ended) {
+			return true;
+		}
+
+		PollEvent event = POLL_EVENTS.isEnabled() ? new PollEvent() : null;
+		if (event != null) {
+			event.begin();
+		}
+		boolean mowerPhase = pollMower;
+		if (turnEvent == null && TURN_EVENTS.isEnabled()) {
+			turnEvent = new TurnEvent();
+			turnEvent.begin();
+		}
+
 		boolean endSimulation = false;
 
-		if (pollMower && stalledMowerIds.size() == mowers.size()) {
+		if (tileSize > 0) {
+			runTiledPhase();
+			endSimulation = shouldEndSimulation();
+		}
+
+		else if (pollMower && mowerStatuses.getStalledCount() == context.getMowers().size()) {
 			pollMower = false;
 			pollPuppyAndPaint();
 			endSimulation = shouldEndSimulation();
 		}
 
 		else if (pollMower) {
-			LawnMower mower = mowers.get(mowerPollingIndex);
+			if (simultaneousTurns && mowerPollingIndex == 0) {
+				decideMowerPhase();
+			}
+			LawnMower mower = context.getMowers().get(mowerPollingIndex);
 
 			// skip over stalled or crashed or poweredoff mowers
-			while (stalledMowerIds.contains(mower.getId()) || crashedMowerIds.contains(mower.getId())
-					|| poweredOffMowerIds.contains(mower.getId())) {
+			while (!mowerStatuses.isPollable(mower.getId())) {
 				mowerPollingIndex += 1;
-				if (mowerPollingIndex < mowers.size()) {
-					mower = mowers.get(mowerPollingIndex);
+				if (mowerPollingIndex < context.getMowers().size()) {
+					mower = context.getMowers().get(mowerPollingIndex);
 				} else {
 					break;
 				}
 			}
 
-			if (mowerPollingIndex == mowers.size()) {
+			if (mowerPollingIndex == context.getMowers().size()) {
 				pollMower = false;
 				mowerPollingIndex = 0;
 				pollPuppyAndPaint();
@@ -319,13 +846,16 @@ public class Simulator {
 		}
 
 		if (endSimulation) {
+			ended = true;
 			printFinalReport();
 		}
 
-		for (Puppy pup : puppies) {
-			pup.setLawn(lawnLayout);
+		if (event != null && event.shouldCommit()) {
+			event.turn = turnCount;
+			event.mowerPhase = mowerPhase;
+			event.ended = endSimulation;
+			event.commit();
 		}
-
 		return endSimulation;
 	}
 
@@ -333,242 +863,538 @@ public class Simulator {
 	 * Poll next puppy for action and paint
 	 */
 	private synchronized void pollPuppyAndPaint() {
-		Puppy pup = puppies.get(puppyPollingIndex);
-		PuppyAction act = pollForPuppyAction(pup);
-
-		Square currentPupLocation = puppyLocations[pup.getId()];
-		int currentPupX = currentPupLocation.getX();
-		int currentPupY = currentPupLocation.getY();
-
-		if (act.getType() == PuppyActionType.Stay) {
-			sendOkayResponse(pup);
-			LawnCanvasJPanel.getInstance().setPuppySquareText(currentPupX, currentPupY, (pup.getId() + 1) + "");
-			LawnCanvasJPanel.getInstance().setActiveColor(currentPupX, currentPupY, Color.BLUE);
-			LawnCanvasJPanel.getInstance().setActive(currentPupX, currentPupY, true);
-		} else {
-			Square newLocation = act.getDestination();
-			int newPupX = newLocation.getX();
-			int newPupY = newLocation.getY();
-
-			CanvasSquareState withoutPuppyState = CanvasSquareState.Grass;
-			SquareType sqrType = lawnLayout[currentPupY][currentPupX];
-
-			if (sqrType == SquareType.Puppy_empty) {
-				withoutPuppyState = CanvasSquareState.Empty;
-				sqrType = SquareType.Empty;
-			} else if (sqrType == SquareType.Puppy_mower) {
-				sqrType = SquareType.Mower;
-			} else if (sqrType == SquareType.Puppy_grass) {
-				sqrType = SquareType.Grass;
-			}
-
-			// update lawn layout on the square puppy is currently on (puppy is about to
-			// move)
-			lawnLayout[currentPupY][currentPupX] = sqrType;
-
-			for (LawnMower mower : mowers) {
-				Square mowerPosition = mowerLocations[mower.getId()];
-
-				int mowerX = mowerPosition.getX();
-				int mowerY = mowerPosition.getY();
-
-				if (mowerX == currentPupX && mowerY == currentPupY) {
-					if (!poweredOffMowerIds.contains(mower.getId())) {
-						int index = stalledMowerIds.indexOf(mower.getId());
-						stalledMowerIds.remove(index);
-					}
-					withoutPuppyState = CanvasSquareState.valueOf("Mower" + mower.currentDirection().getName());
-					break;
-				}
-			}
-
-			// repaint the square the puppy is currently on
-			LawnCanvasJPanel.getInstance().updateCanvasSquare(currentPupX, currentPupY, withoutPuppyState, false);
-
-			sqrType = lawnLayout[newPupY][newPupX];
-
-			CanvasSquareState newState = CanvasSquareState.Puppy;
-
-			if (sqrType == SquareType.Grass) {
-				sqrType = SquareType.Puppy_grass;
-				newState = CanvasSquareState.PuppyGrass;
-			} else if (sqrType == SquareType.Mower) {
-				sqrType = SquareType.Puppy_mower;
-			} else if (sqrType == SquareType.Empty) {
-				sqrType = SquareType.Puppy_empty;
-			}
-
-			// update lawn layout at the destination square for the puppy move
-			lawnLayout[newPupY][newPupX] = sqrType;
-
-			for (LawnMower mower : mowers) {
-				Square mowerPosition = mowerLocations[mower.getId()];
-
-				int mowerX = mowerPosition.getX();
-				int mowerY = mowerPosition.getY();
-
-				if (mowerX == newPupX && mowerY == newPupY) {
-					if (!poweredOffMowerIds.contains(mower.getId())) {
-						stalledMowerIds.add(mower.getId());
-					}
-					LawnCanvasJPanel.getInstance().setPuppySquareText(newPupX, newPupY, (pup.getId() + 1) + "");
-					newState = CanvasSquareState.valueOf("PuppyMower" + mower.currentDirection().getName());
-					break;
-				}
+		PuppyPollEvent event = PUPPY_POLL_EVENTS.isEnabled() ? new PuppyPollEvent() : null;
+		if (event != null) {
+			event.begin();
+		}
+		Puppy pup = context.getPuppies().get(puppyPollingIndex);
+		PuppyAction act;
+		if (parallelPuppies) {
+			if (puppyPollingIndex == 0) {
+				decidePuppyPhase();
 			}
+			act = resolvePuppyAction(pup, pendingPuppyActions[puppyPollingIndex], log);
+		} else {
+			act = pollForPuppyAction(pup);
+		}
 
-			sendOkayResponse(pup);
-
-			puppyLocations[pup.getId()] = newLocation;
-
-			// repaint the destination square for puppy move
-			LawnCanvasJPanel.getInstance().setPuppySquareText(newPupX, newPupY, (pup.getId() + 1) + "");
-			LawnCanvasJPanel.getInstance().setActiveColor(newPupX, newPupY, Color.BLUE);
-			LawnCanvasJPanel.getInstance().updateCanvasSquare(newPupX, newPupY, newState, true);
+		commitPuppy(pup, act, log);
+		if (event != null && event.shouldCommit()) {
+			event.puppyId = pup.getId();
+			event.turn = turnCount;
+			event.action = act.getType().name();
+			event.commit();
 		}
 
 		// un-highlight the square the previously polled puppy occupied
-		if (previousPuppyPollingIndex != -1) {
-			Puppy previousPup = puppies.get(previousPuppyPollingIndex);
-			Square sqr = puppyLocations[previousPup.getId()];
+		if (view != null && previousPuppyPollingIndex != -1) {
+			Puppy previousPup = context.getPuppies().get(previousPuppyPollingIndex);
+			Square sqr = context.getPuppyLocations()[previousPup.getId()];
 			int x = sqr.getX();
 			int y = sqr.getY();
-			LawnCanvasJPanel.getInstance().setActive(x, y, false);
+			view.setActive(x, y, false);
 		}
 
 		// if we are starting polling for puppy, un-highlight the square for the last
 		// polled mower; if that mower occupies the same square, then don't un-highlight
 		if (puppyPollingIndex == 0 && previousMowerPollingIndex != -1) {
-			LawnMower previousMower = mowers.get(previousMowerPollingIndex);
-			Square sqr = mowerLocations[previousMower.getId()];
+			LawnMower previousMower = context.getMowers().get(previousMowerPollingIndex);
+			Square sqr = context.getMowerLocations()[previousMower.getId()];
 			int x = sqr.getX();
 			int y = sqr.getY();
 
 			boolean active = false;
 
-			Square pupLocation = puppyLocations[pup.getId()];
+			Square pupLocation = context.getPuppyLocations()[pup.getId()];
 			int pupX = pupLocation.getX();
 			int pupY = pupLocation.getY();
 
-			if (x == pupX && y == pupY) {
-				active = true;
-				LawnCanvasJPanel.getInstance().setActiveColor(x, y, Color.BLUE);
-			}
+			if (view != null) {
+				if (x == pupX && y == pupY) {
+					active = true;
+					view.setPuppyActiveColor(x, y);
+				}
 
-			LawnCanvasJPanel.getInstance().setActive(x, y, active);
+				view.setActive(x, y, active);
+			}
 			previousMowerPollingIndex = -1;
 		}
 		previousPuppyPollingIndex = puppyPollingIndex;
 
 		puppyPollingIndex += 1;
 
-		if (puppyPollingIndex == puppies.size()) {
+		if (puppyPollingIndex == context.getPuppies().size()) {
 			puppyPollingIndex = 0;
 			pollMower = true;
 
 			// increment turn count
 			incrementTurnCount();
 
-			// should the mower be "free" after stalling for # of turns (mower-mower case)
-			for (LawnMower mower : mowers) {
-				if (stalledTurnsRemainingByMower.containsKey(mower.getId())) {
-					int turnsRemaining = stalledTurnsRemainingByMower.get(mower.getId());
-					turnsRemaining -= 1;
-
-					if (turnsRemaining == 0) {
-						int index = stalledMowerIds.indexOf(mower.getId());
-						stalledMowerIds.remove(index);
-						stalledTurnsRemainingByMower.remove(mower.getId());
-					} else {
-						stalledTurnsRemainingByMower.put(mower.getId(), turnsRemaining);
-					}
-				}
+			// free the mowers whose stall for # of turns ends (mower-mower case)
+			mowerStatuses.endTurn();
+
+		}
+
+	}
+
+	/**
+	 * Runs the next mower or puppy phase partitioned by tiles, see
+	 * {@link #setTileSize(int)}
+	 */
+	private void runTiledPhase() {
+		if (tiling == null) {
+			tiling = new LawnTiling(context.getLawnWidth(), context.getLawnHeight(), tileSize);
+		}
+
+		if (pollMower) {
+			final List<LawnMower> mowers = context.getMowers();
+			decideMowerPhase();
+			commitByTile(mowers.size(), i -> pendingMowerActions[i] == null ? null
+					: context.getMowerLocations()[mowers.get(i).getId()], (out, i) -> {
+						LawnMower mower = mowers.get(i);
+						MowerAction act = pendingMowerActions[i];
+						mower.setNextAction(act);
+						out.mowerAction(mower.getId(), act);
+						commitMower(mower, act, out);
+					});
+			pollMower = false;
+		} else {
+			final List<Puppy> puppies = context.getPuppies();
+			decidePuppyPhase();
+			commitByTile(puppies.size(), i -> context.getPuppyLocations()[puppies.get(i).getId()], (out, i) -> {
+				Puppy pup = puppies.get(i);
+				commitPuppy(pup, resolvePuppyAction(pup, pendingPuppyActions[i], out), out);
+			});
+			pollMower = true;
+
+			incrementTurnCount();
+			mowerStatuses.endTurn();
+		}
+	}
+
+	/**
+	 * Commits agents tile by tile: the agents of each tile in index order, on one
+	 * thread per tile and into a buffered log per tile, then the logs in tile
+	 * order, then the agents of the halo in index order. Agents of different tiles
+	 * touch different squares, so the order the tiles run in does not matter.
+	 * 
+	 * @param count
+	 *            The number of agents
+	 * @param location
+	 *            The square of an agent by index, or null to skip the agent
+	 * @param commit
+	 *            Commits an agent by index, printing on the given log
+	 */
+	private void commitByTile(int count, IntFunction<Square> location, ObjIntConsumer<ProtocolLog> commit) {
+		int tileCount = tiling.getTileCount();
+
+		// bucket the agents by tile, the halo after the last tile, keeping index order
+		int[] tiles = new int[count];
+		final int[] starts = new int[tileCount + 2];
+		for (int i = 0; i < count; i++) {
+			Square sqr = location.apply(i);
+			if (sqr == null) {
+				tiles[i] = -1;
+				continue;
+			}
+			int tile = tiling.tileOf(sqr.getX(), sqr.getY());
+			tiles[i] = tile == LawnTiling.HALO ? tileCount : tile;
+			starts[tiles[i] + 1] += 1;
+		}
+		for (int t = 0; t <= tileCount; t++) {
+			starts[t + 1] += starts[t];
+		}
+		final int[] agents = new int[starts[tileCount + 1]];
+		int[] next = starts.clone();
+		for (int i = 0; i < count; i++) {
+			if (tiles[i] >= 0) {
+				agents[next[tiles[i]]++] = i;
+			}
+		}
+
+		// only the tiles with agents are committed
+		int busyCount = 0;
+		for (int t = 0; t < tileCount; t++) {
+			if (starts[t + 1] > starts[t]) {
+				busyCount += 1;
+			}
+		}
+		final int[] busyTiles = new int[busyCount];
+		for (int t = 0, b = 0; t < tileCount; t++) {
+			if (starts[t + 1] > starts[t]) {
+				busyTiles[b++] = t;
 			}
+		}
 
+		final ProtocolLog[] logs = new ProtocolLog[busyCount];
+		IntStream tileStream = IntStream.range(0, busyCount);
+		if (view == null) {
+			tileStream = tileStream.parallel();
+		}
+		tileStream.forEach(b -> {
+			int tile = busyTiles[b];
+			logs[b] = log.newBuffer();
+			for (int j = starts[tile]; j < starts[tile + 1]; j++) {
+				commit.accept(logs[b], agents[j]);
+			}
+		});
+		for (ProtocolLog buffered : logs) {
+			log.append(buffered);
 		}
 
+		for (int j = starts[tileCount]; j < starts[tileCount + 1]; j++) {
+			commit.accept(log, agents[j]);
+		}
+	}
+
+	/**
+	 * Has every pollable mower decide its action for the mower phase, in parallel.
+	 * A mower decides from its own state and the shared repositories, which are
+	 * not written until all have decided, so every mower sees the state the turn
+	 * started with. Mowers that are not pollable now are not polled in this phase
+	 * either, since a mower's status only changes on its own poll.
+	 */
+	private void decideMowerPhase() {
+		final List<LawnMower> mowers = context.getMowers();
+		if (pendingMowerActions == null || pendingMowerActions.length != mowers.size()) {
+			pendingMowerActions = new MowerAction[mowers.size()];
+		}
+		final MowerAction[] decided = pendingMowerActions;
+		IntStream.range(0, mowers.size()).parallel().forEach(i -> {
+			LawnMower mower = mowers.get(i);
+			decided[i] = mowerStatuses.isPollable(mower.getId()) ? decide(mower) : null;
+		});
+	}
+
+	/**
+	 * Has every puppy decide its action for the puppy phase, in parallel. The lawn
+	 * is not written until all have decided, so every puppy sees it as it was at
+	 * the start of the phase, and each draws from its own random stream.
+	 */
+	private void decidePuppyPhase() {
+		final List<Puppy> puppies = context.getPuppies();
+		if (pendingPuppyActions == null || pendingPuppyActions.length != puppies.size()) {
+			pendingPuppyActions = new PuppyAction[puppies.size()];
+		}
+		final PuppyAction[] decided = pendingPuppyActions;
+		IntStream.range(0, puppies.size()).parallel().forEach(i -> decided[i] = decide(puppies.get(i)));
+	}
+
+	/**
+	 * Has a mower decide its next action, timed when measured; may run on a worker
+	 * thread during a decision phase, while the turn count does not change
+	 */
+	private MowerAction decide(LawnMower mower) {
+		MowerDecisionEvent event = MOWER_DECISION_EVENTS.isEnabled() ? new MowerDecisionEvent() : null;
+		if (event != null) {
+			event.begin();
+		}
+		MowerAction act;
+		if (metrics == null) {
+			act = mower.decidesNextAction();
+		} else {
+			long start = System.nanoTime();
+			act = mower.decidesNextAction();
+			metrics.record(TimedPhase.MowerDecision, System.nanoTime() - start);
+		}
+		if (event != null && event.shouldCommit()) {
+			event.mowerId = mower.getId();
+			event.turn = turnCount;
+			event.action = act.getType().name();
+			event.steps = act.getSteps();
+			event.commit();
+		}
+		return act;
+	}
+
+	/**
+	 * Has a puppy decide its next action, timed when measured
+	 */
+	private PuppyAction decide(Puppy puppy) {
+		if (metrics == null) {
+			return puppy.decidesNextAction();
+		}
+		long start = System.nanoTime();
+		PuppyAction act = puppy.decidesNextAction();
+		metrics.record(TimedPhase.PuppyDecision, System.nanoTime() - start);
+		return act;
+	}
+
+	/**
+	 * Resolves the action a puppy decided at the start of the phase against the
+	 * moves applied since: if an earlier puppy has moved onto the destination, the
+	 * puppy stays. The resolved action is logged and becomes the action of the
+	 * puppy.
+	 * 
+	 * @param puppy
+	 *            The {@link Puppy}
+	 * @param decided
+	 *            The {@link PuppyAction} it decided
+	 * @param out
+	 *            The {@link ProtocolLog} to print the action on
+	 * @return The resolved {@link PuppyAction}
+	 */
+	private PuppyAction resolvePuppyAction(Puppy puppy, PuppyAction decided, ProtocolLog out) {
+		PuppyAction act = decided;
+		if (act.getType() == PuppyActionType.Move) {
+			Square location = puppy.currentPostion();
+			SquareType type = context.getLawn().get(location.getX() + act.getDirection().getDeltaX(),
+					location.getY() + act.getDirection().getDeltaY());
+			if (type == SquareType.Puppy_empty || type == SquareType.Puppy_grass
+					|| type == SquareType.Puppy_mower) {
+				act = PuppyAction.STAY;
+			}
+		}
+		puppy.setNextAction(act);
+		logPuppyAction(puppy, act, out);
+		return act;
 	}
 
 	/**
 	 * Poll next mower for action and paint
 	 */
 	private synchronized void pollMowerAndPaint() {
-		LawnMower mower = mowers.get(mowerPollingIndex);
+		MowerPollEvent event = MOWER_POLL_EVENTS.isEnabled() ? new MowerPollEvent() : null;
+		if (event != null) {
+			event.begin();
+		}
+		LawnMower mower = context.getMowers().get(mowerPollingIndex);
 
 		// highlight canvas UI square the currently polled mower is on
-		Square sqr = mowerLocations[mower.getId()];
+		Square sqr = context.getMowerLocations()[mower.getId()];
 		int x = sqr.getX();
 		int y = sqr.getY();
-		LawnCanvasJPanel.getInstance().setMowerSquareText(x, y, (mower.getId() + 1) + "");
-		LawnCanvasJPanel.getInstance().setActiveColor(x, y, Color.RED);
-		LawnCanvasJPanel.getInstance().setActive(x, y, true);
-
-		// poll for mower action
-		MowerAction act = pollForMowerAction(mower);
-
-		// process mower action
-		if (act.getType() == MowerActionType.Turn_off) {
-			sendOkayResponse(mower);
-			poweredOffMowerIds.add(mower.getId());
+		if (view != null) {
+			view.setMowerSquareText(x, y, (mower.getId() + 1) + "");
+			view.setMowerActiveColor(x, y);
+			view.setActive(x, y, true);
+		}
 
-			LawnCanvasJPanel.getInstance().setMowerSquareText(x, y, (mower.getId() + 1) + ": Off");
-			LawnCanvasJPanel.getInstance().repaint(x, y);
-		} else if (act.getType() == MowerActionType.Scan) {
-			List<String> scanResult = respondToScan();
-			sendScanResponse(mower, scanResult);
+		// poll for mower action, or take the one it decided at the start of the phase
+		MowerAction act;
+		if (simultaneousTurns) {
+			act = pendingMowerActions[mowerPollingIndex];
+			mower.setNextAction(act);
+			log.mowerAction(mower.getId(), act);
 		} else {
-			int stepsTaken = processMoveAction(act);
+			act = pollForMowerAction(mower);
+		}
 
-			if (crashedMowerIds.contains(mower.getId())) {
-				sendCrashResponse(mower);
-			} else if (stalledMowerIds.contains(mower.getId())) {
-				sendStallResponse(mower, stepsTaken);
-			} else {
-				sendOkayResponse(mower);
-			}
+		int stepsTaken = commitMower(mower, act, log);
+		if (event != null && event.shouldCommit()) {
+			event.mowerId = mower.getId();
+			event.turn = turnCount;
+			event.action = act.getType().name();
+			event.steps = act.getSteps();
+			event.stepsTaken = stepsTaken;
+			event.commit();
 		}
 
 		// un-highlight the canvas UI square the previously polled mower was on
-		if (previousMowerPollingIndex != -1) {
-			LawnMower previousMower = mowers.get(previousMowerPollingIndex);
-			sqr = mowerLocations[previousMower.getId()];
+		if (view != null && previousMowerPollingIndex != -1) {
+			LawnMower previousMower = context.getMowers().get(previousMowerPollingIndex);
+			sqr = context.getMowerLocations()[previousMower.getId()];
 			x = sqr.getX();
 			y = sqr.getY();
-			LawnCanvasJPanel.getInstance().setActive(x, y, false);
+			view.setActive(x, y, false);
 		}
 
 		// when starting to poll for mower, un-highlight the square for previously
 		// polled puppy; if that puppy occupies the same square, then don't un-highlight
 		if (mowerPollingIndex >= 0 && previousPuppyPollingIndex != -1) {
-			Puppy previousPup = puppies.get(previousPuppyPollingIndex);
-			sqr = puppyLocations[previousPup.getId()];
+			Puppy previousPup = context.getPuppies().get(previousPuppyPollingIndex);
+			sqr = context.getPuppyLocations()[previousPup.getId()];
 			x = sqr.getX();
 			y = sqr.getY();
 
 			boolean active = false;
 
-			Square mowerSquare = mowerLocations[mower.getId()];
+			Square mowerSquare = context.getMowerLocations()[mower.getId()];
 			int mowerX = mowerSquare.getX();
 			int mowerY = mowerSquare.getY();
 
-			if (mowerX == x && mowerY == y) {
-				active = true;
-				LawnCanvasJPanel.getInstance().setActiveColor(x, y, Color.RED);
-			}
+			if (view != null) {
+				if (mowerX == x && mowerY == y) {
+					active = true;
+					view.setMowerActiveColor(x, y);
+				}
 
-			LawnCanvasJPanel.getInstance().setActive(x, y, active);
+				view.setActive(x, y, active);
+			}
 			previousPuppyPollingIndex = -1;
 		}
 
 		previousMowerPollingIndex = mowerPollingIndex;
 
 		mowerPollingIndex += 1;
-		if (mowerPollingIndex == mowers.size()) {
+		if (mowerPollingIndex == context.getMowers().size()) {
 			mowerPollingIndex = 0;
 			pollMower = false;
 		}
 	}
 
+	/**
+	 * Processes the action of a mower, responds to the mower and paints
+	 * 
+	 * @param mower
+	 *            The {@link LawnMower}
+	 * @param act
+	 *            The {@link MowerAction} of the mower
+	 * @param out
+	 *            The {@link ProtocolLog} to print the response on
+	 * @return The number of steps the mower took; 0 unless it moved
+	 */
+	private int commitMower(LawnMower mower, MowerAction act, ProtocolLog out) {
+		if (metrics != null) {
+			metrics.poll();
+		}
+		if (act.getType() == MowerActionType.Turn_off) {
+			sendOkayResponse(mower, out);
+			mowerStatuses.powerOff(mower.getId());
+
+			if (view != null) {
+				Square sqr = context.getMowerLocations()[mower.getId()];
+				int x = sqr.getX();
+				int y = sqr.getY();
+				view.setMowerSquareText(x, y, (mower.getId() + 1) + ": Off");
+				view.repaint(x, y);
+			}
+		} else if (act.getType() == MowerActionType.Scan) {
+			int scanResult;
+			if (metrics == null) {
+				scanResult = respondToScan(mower);
+			} else {
+				long start = System.nanoTime();
+				scanResult = respondToScan(mower);
+				metrics.record(TimedPhase.ScanServing, System.nanoTime() - start);
+			}
+			sendScanResponse(mower, scanResult, out);
+		} else {
+			int stepsTaken = processMoveAction(mower, act);
+
+			if (mowerStatuses.isCrashed(mower.getId())) {
+				sendCrashResponse(mower, out);
+			} else if (mowerStatuses.isStalled(mower.getId())) {
+				sendStallResponse(mower, stepsTaken, out);
+			} else {
+				sendOkayResponse(mower, out);
+			}
+			return stepsTaken;
+		}
+		return 0;
+	}
+
+	/**
+	 * Applies the action of a puppy to the lawn, responds to the puppy and paints
+	 * 
+	 * @param pup
+	 *            The {@link Puppy}
+	 * @param act
+	 *            The {@link PuppyAction} of the puppy
+	 * @param out
+	 *            The {@link ProtocolLog} to print the response on
+	 */
+	private void commitPuppy(Puppy pup, PuppyAction act, ProtocolLog out) {
+		if (metrics != null) {
+			metrics.poll();
+		}
+		LawnGrid lawn = context.getLawn();
+		OccupancyIndex occupancy = context.getOccupancy();
+
+		Square currentPupLocation = context.getPuppyLocations()[pup.getId()];
+		int currentPupX = currentPupLocation.getX();
+		int currentPupY = currentPupLocation.getY();
+
+		if (act.getType() == PuppyActionType.Stay) {
+			sendOkayResponse(pup, out);
+			if (view != null) {
+				view.setPuppySquareText(currentPupX, currentPupY, (pup.getId() + 1) + "");
+				view.setPuppyActiveColor(currentPupX, currentPupY);
+				view.setActive(currentPupX, currentPupY, true);
+			}
+		} else {
+			Direction dir = act.getDirection();
+			int newPupX = currentPupX + dir.getDeltaX();
+			int newPupY = currentPupY + dir.getDeltaY();
+
+			SquareType sqrType = lawn.get(currentPupX, currentPupY);
+			boolean leavesEmpty = false;
+
+			if (sqrType == SquareType.Puppy_empty) {
+				leavesEmpty = true;
+				sqrType = SquareType.Empty;
+			} else if (sqrType == SquareType.Puppy_mower) {
+				sqrType = SquareType.Mower;
+			} else if (sqrType == SquareType.Puppy_grass) {
+				sqrType = SquareType.Grass;
+			}
+
+			// update lawn layout on the square puppy is currently on (puppy is about to
+			// move)
+			lawn.set(currentPupX, currentPupY, sqrType);
+
+			LawnMower mowerUnderPuppy = null;
+			int mowerId = occupancy.mowerAt(currentPupX, currentPupY);
+			if (mowerId != OccupancyIndex.NONE) {
+				if (!mowerStatuses.isPoweredOff(mowerId)) {
+					mowerStatuses.releasePuppyStall(mowerId);
+				}
+				mowerUnderPuppy = context.getMowers().get(mowerId);
+			}
+
+			// repaint the square the puppy is currently on
+			if (view != null) {
+				CanvasSquareState withoutPuppyState = leavesEmpty ? CanvasSquareState.Empty : CanvasSquareState.Grass;
+				if (mowerUnderPuppy != null) {
+					withoutPuppyState = CanvasSquareState
+							.valueOf("Mower" + mowerUnderPuppy.currentDirection().getName());
+				}
+				view.updateCanvasSquare(currentPupX, currentPupY, withoutPuppyState, false);
+			}
+
+			sqrType = lawn.get(newPupX, newPupY);
+			boolean entersGrass = false;
+
+			if (sqrType == SquareType.Grass) {
+				sqrType = SquareType.Puppy_grass;
+				entersGrass = true;
+			} else if (sqrType == SquareType.Mower) {
+				sqrType = SquareType.Puppy_mower;
+			} else if (sqrType == SquareType.Empty) {
+				sqrType = SquareType.Puppy_empty;
+			}
+
+			// update lawn layout at the destination square for the puppy move
+			lawn.set(newPupX, newPupY, sqrType);
+
+			mowerUnderPuppy = null;
+			mowerId = occupancy.mowerAt(newPupX, newPupY);
+			if (mowerId != OccupancyIndex.NONE) {
+				if (!mowerStatuses.isPoweredOff(mowerId)) {
+					mowerStatuses.stallByPuppy(mowerId);
+				}
+				mowerUnderPuppy = context.getMowers().get(mowerId);
+			}
+
+			sendOkayResponse(pup, out);
+
+			context.getPuppyLocations()[pup.getId()] = pup.currentPostion();
+			occupancy.removePuppy(currentPupX, currentPupY);
+			occupancy.placePuppy(pup.getId(), newPupX, newPupY);
+
+			// repaint the destination square for puppy move
+			if (view != null) {
+				CanvasSquareState newState = entersGrass ? CanvasSquareState.PuppyGrass : CanvasSquareState.Puppy;
+				if (mowerUnderPuppy != null) {
+					newState = CanvasSquareState.valueOf("PuppyMower" + mowerUnderPuppy.currentDirection().getName());
+				}
+				view.setPuppySquareText(newPupX, newPupY, (pup.getId() + 1) + "");
+				view.setPuppyActiveColor(newPupX, newPupY);
+				view.updateCanvasSquare(newPupX, newPupY, newState, true);
+			}
+		}
+	}
+
 	/**
 	 * Poll for mower action
 	 * 
@@ -577,7 +1403,9 @@ public class Simulator {
 	 * @return The {@link MowerAction}
 	 */
 	public MowerAction pollForMowerAction(LawnMower mower) {
-		return mower.decidesNextAction();
+		MowerAction act = decide(mower);
+		log.mowerAction(mower.getId(), act);
+		return act;
 	}
 
 	/**
@@ -588,7 +1416,26 @@ public class Simulator {
 	 * @return The {@link PuppyAction}
 	 */
 	public PuppyAction pollForPuppyAction(Puppy puppy) {
-		return puppy.decidesNextAction();
+		PuppyAction act = decide(puppy);
+		logPuppyAction(puppy, act, log);
+		return act;
+	}
+
+	/**
+	 * Publishes a puppy poll, with the destination of a move in protocol
+	 * coordinates
+	 */
+	private void logPuppyAction(Puppy puppy, PuppyAction act, ProtocolLog out) {
+		if (out.isEnabled()) {
+			Square position = puppy.currentPostion();
+			int x = position.getX();
+			int y = position.getY();
+			if (act.getType() == PuppyActionType.Move) {
+				x += act.getDirection().getDeltaX();
+				y += act.getDirection().getDeltaY();
+			}
+			out.puppyAction(puppy.getId(), act, x, convertY(y, context.getLawnHeight()));
+		}
 	}
 
 	/**
@@ -598,8 +1445,19 @@ public class Simulator {
 	 *            The currently polled mower {@link LawnMower}
 	 */
 	public void sendOkayResponse(LawnMower mower) {
-		System.out.println("ok");
+		sendOkayResponse(mower, log);
+	}
+
+	private void sendOkayResponse(LawnMower mower, ProtocolLog out) {
 		mower.processOkResponse();
+		MowerAction act = mower.getNextAction();
+		if (act.getType() == MowerActionType.Turn_off) {
+			out.turnedOff(mower.getId());
+		} else if (out.isEnabled()) {
+			Square sqr = context.getMowerLocations()[mower.getId()];
+			out.moved(mower.getId(), act.getSteps(), act.getNewDirection(), sqr.getX(),
+					convertY(sqr.getY(), context.getLawnHeight()));
+		}
 	}
 
 	/**
@@ -609,8 +1467,17 @@ public class Simulator {
 	 *            The {@link Puppy} that is currently being polled
 	 */
 	public void sendOkayResponse(Puppy pup) {
-		System.out.println("ok");
+		sendOkayResponse(pup, log);
+	}
+
+	private void sendOkayResponse(Puppy pup, ProtocolLog out) {
 		pup.processOkayResponse();
+		if (pup.getNextAction().getType() == PuppyActionType.Stay) {
+			out.puppyStayed(pup.getId());
+		} else if (out.isEnabled()) {
+			Square sqr = pup.currentPostion();
+			out.puppyMoved(pup.getId(), sqr.getX(), convertY(sqr.getY(), context.getLawnHeight()));
+		}
 	}
 
 	/**
@@ -619,10 +1486,17 @@ public class Simulator {
 	 * @param mower
 	 *            The currently polled mower {@link LawnMower}
 	 * @param scanResult
-	 *            The scan response
+	 *            The scan response, packed as a {@link ScanResult}
 	 */
-	public void sendScanResponse(LawnMower mower, List<String> scanResult) {
-		printScanResponse(scanResult);
+	public void sendScanResponse(LawnMower mower, int scanResult) {
+		sendScanResponse(mower, scanResult, log);
+	}
+
+	private void sendScanResponse(LawnMower mower, int scanResult, ProtocolLog out) {
+		if (metrics != null) {
+			metrics.scan();
+		}
+		out.scan(mower.getId(), scanResult);
 		mower.updateSharedScanInfo(scanResult);
 	}
 
@@ -635,8 +1509,18 @@ public class Simulator {
 	 *            The number of steps
 	 */
 	public void sendStallResponse(LawnMower mower, int steps) {
-		System.out.println("stall," + steps);
+		sendStallResponse(mower, steps, log);
+	}
+
+	private void sendStallResponse(LawnMower mower, int steps, ProtocolLog out) {
+		if (metrics != null) {
+			metrics.stall();
+		}
 		mower.processStallResponse(steps);
+		if (out.isEnabled()) {
+			Square sqr = context.getMowerLocations()[mower.getId()];
+			out.stall(mower.getId(), steps, sqr.getX(), convertY(sqr.getY(), context.getLawnHeight()));
+		}
 	}
 
 	/**
@@ -646,7 +1530,14 @@ public class Simulator {
 	 *            The currently polled mower {@link LawnMower}
 	 */
 	public void sendCrashResponse(LawnMower mower) {
-		System.out.println("crash");
+		sendCrashResponse(mower, log);
+	}
+
+	private void sendCrashResponse(LawnMower mower, ProtocolLog out) {
+		if (metrics != null) {
+			metrics.crash();
+		}
+		out.crash(mower.getId());
 		mower.processCrashResponse();
 	}
 
@@ -654,30 +1545,64 @@ public class Simulator {
 	 * Prints the final simulation result
 	 */
 	public void printFinalReport() {
+		synchronized (this) {
+			log.finalReport(getTotalSquares(), getCuttableSquares(), grassCutCount.get(), turnCount);
+		}
+		log.close();
+	}
+
+	/**
+	 * Returns the final simulation result (total squares, cuttable squares, grass
+	 * cut, turns)
+	 * 
+	 * @return The report line
+	 */
+	public synchronized String getFinalReport() {
 		StringBuffer result = new StringBuffer();
-		int totalSquares = lawnWidth * lawnHeight;
-		result.append(totalSquares);
+		result.append(getTotalSquares());
 		result.append(",");
-		result.append(totalSquares - craterCount);
+		result.append(getCuttableSquares());
 		result.append(",");
-		result.append(grassCutCount);
+		result.append(grassCutCount.get());
 		result.append(",");
 		result.append(turnCount);
-		System.out.println(result.toString());
+		return result.toString();
 	}
 
 	/**
-	 * Sets the width and height
+	 * Returns the number of squares on the lawn
 	 * 
-	 * @param width
-	 *            The width of the lawn
-	 * @param height
-	 *            The height of the lawn
+	 * @return The number of squares
+	 */
+	public int getTotalSquares() {
+		return context.getLawnWidth() * context.getLawnHeight();
+	}
+
+	/**
+	 * Returns the number of squares that are not craters
+	 * 
+	 * @return The number of squares
 	 */
-	private void setWidthHeight(int width, int height) {
-		lawnWidth = width;
-		lawnHeight = height;
-		lawnLayout = new SquareType[height][width];
+	public int getCuttableSquares() {
+		return getTotalSquares() - craterCount;
+	}
+
+	/**
+	 * Returns the number of grass squares cut so far
+	 * 
+	 * @return The grass cut count
+	 */
+	public synchronized int getGrassCutCount() {
+		return grassCutCount.get();
+	}
+
+	/**
+	 * Returns the number of turns completed so far
+	 * 
+	 * @return The turn count
+	 */
+	public synchronized int getTurnCount() {
+		return turnCount;
 	}
 
 	/**
@@ -701,7 +1626,7 @@ public class Simulator {
 			int y = convertY(Integer.parseInt(numbers[1]), height);
 
 			// Java convention of array indexing (1st value vertical, 2nd value horizontal)
-			lawnLayout[y][x] = SquareType.Crater;
+			context.getLawn().set(x, y, SquareType.Crater);
 		}
 	}
 
@@ -712,29 +1637,34 @@ public class Simulator {
 	 *            The move mower {@link MowerAction}
 	 * @return The steps that can be safely taken
 	 */
-	private int processMoveAction(MowerAction act) {
+	private int processMoveAction(LawnMower mower, MowerAction act) {
 
 		int steps = act.getSteps();
-		LawnMower mower = mowers.get(mowerPollingIndex);
 		Direction dir = mower.currentDirection();
 
 		if (steps > 0) {
-			steps = updateMowerPosition(steps, dir);
-			if (!stalledMowerIds.contains(mower.getId()) && !crashedMowerIds.contains(mower.getId())) {
+			if (metrics == null) {
+				steps = updateMowerPosition(mower, steps, dir);
+			} else {
+				long start = System.nanoTime();
+				steps = updateMowerPosition(mower, steps, dir);
+				metrics.record(TimedPhase.MoveResolution, System.nanoTime() - start);
+			}
+			if (view != null && !mowerStatuses.isStalled(mower.getId()) && !mowerStatuses.isCrashed(mower.getId())) {
 				String state = "Mower" + act.getNewDirection().getName();
-				Square sqr = mowerLocations[mower.getId()];
+				Square sqr = context.getMowerLocations()[mower.getId()];
 				int x = sqr.getX();
 				int y = sqr.getY();
-				LawnCanvasJPanel.getInstance().setActiveColor(x, y, Color.RED);
-				LawnCanvasJPanel.getInstance().updateCanvasSquare(x, y, CanvasSquareState.valueOf(state), true);
+				view.setMowerActiveColor(x, y);
+				view.updateCanvasSquare(x, y, CanvasSquareState.valueOf(state), true);
 			}
-		} else {
+		} else if (view != null) {
 			String state = "Mower" + act.getNewDirection().getName();
-			Square sqr = mowerLocations[mower.getId()];
+			Square sqr = context.getMowerLocations()[mower.getId()];
 			int x = sqr.getX();
 			int y = sqr.getY();
-			LawnCanvasJPanel.getInstance().setActiveColor(x, y, Color.RED);
-			LawnCanvasJPanel.getInstance().updateCanvasSquare(x, y, CanvasSquareState.valueOf(state), true);
+			view.setMowerActiveColor(x, y);
+			view.updateCanvasSquare(x, y, CanvasSquareState.valueOf(state), true);
 		}
 
 		return steps;
@@ -762,16 +1692,17 @@ public class Simulator {
 	 *            The direction mower is moving
 	 * @return The number of steps safely taken
 	 */
-	private int updateMowerPosition(int steps, Direction direction) {
+	private int updateMowerPosition(LawnMower mower, int steps, Direction direction) {
+		LawnGrid lawn = context.getLawn();
+		OccupancyIndex occupancy = context.getOccupancy();
+
 		int stepsTaken = steps;
 		boolean endMove = false;
 		boolean stalledByPuppy = false;
 		boolean stalledByMower = false;
 
-		LawnMower mower = mowers.get(mowerPollingIndex);
-
 		for (int i = 1; i <= steps; i++) {
-			Square sqr = mowerLocations[mower.getId()];
+			Square sqr = context.getMowerLocations()[mower.getId()];
 			int x = sqr.getX();
 			int y = sqr.getY();
 			int newX = x;
@@ -811,72 +1742,83 @@ public class Simulator {
 			}
 
 			// crash into fence
-			if (newY < 0 || newX < 0 || newY > lawnHeight - 1 || newX > lawnWidth - 1) {
+			if (!lawn.contains(newX, newY)) {
 				// draw an empty lawn canvas square at where the mower was (since mower is
 				// moving and crashed)
-				LawnCanvasJPanel.getInstance().updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				if (view != null) {
+					view.updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				}
 
 				// updates internal fields
-				lawnLayout[y][x] = SquareType.Empty;
-				crashedMowerIds.add(mower.getId());
+				lawn.set(x, y, SquareType.Empty);
+				occupancy.removeMower(x, y);
+				mowerStatuses.crash(mower.getId());
 				endMove = true;
 			}
 			// crash into crater
-			else if (lawnLayout[newY][newX] == SquareType.Crater) {
+			else if (lawn.get(newX, newY) == SquareType.Crater) {
 				// draw an empty lawn canvas square at where the mower was (since mower is
 				// moving and crashed)
-				LawnCanvasJPanel.getInstance().updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				if (view != null) {
+					view.updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				}
 
 				// update internal fields
-				lawnLayout[y][x] = SquareType.Empty;
-				crashedMowerIds.add(mower.getId());
+				lawn.set(x, y, SquareType.Empty);
+				occupancy.removeMower(x, y);
+				mowerStatuses.crash(mower.getId());
 				endMove = true;
 			}
-			// bump into another mower
-			else if (lawnLayout[newY][newX] == SquareType.Mower) {
+			// bump into another mower, also when a puppy is on top of it
+			else if (occupancy.mowerAt(newX, newY) != OccupancyIndex.NONE) {
 				endMove = true;
 				stalledByMower = true;
-				stalledMowerIds.add(mower.getId());
-				stalledTurnsRemainingByMower.put(mower.getId(), stallTurns);
+				mowerStatuses.stallByMower(mower.getId());
 			} else {
 				// draw an empty lawn canvas square at where the mower was(since mower is
 				// moving)
-				LawnCanvasJPanel.getInstance().updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				if (view != null) {
+					view.updateCanvasSquare(x, y, CanvasSquareState.Empty, false);
+				}
 
-				lawnLayout[y][x] = SquareType.Empty;
-				mowerLocations[mower.getId()] = new Square(newX, newY);
+				lawn.set(x, y, SquareType.Empty);
+				context.getMowerLocations()[mower.getId()] = new Square(newX, newY);
+				occupancy.removeMower(x, y);
+				occupancy.placeMower(mower.getId(), newX, newY);
 
-				if (lawnLayout[newY][newX] == SquareType.Grass || lawnLayout[newY][newX] == SquareType.Empty) {
+				SquareType target = lawn.get(newX, newY);
+				if (target == SquareType.Grass || target == SquareType.Empty) {
 
-					if (lawnLayout[newY][newX] == SquareType.Grass) {
+					if (target == SquareType.Grass) {
 						incrementGrassCountCount();
 					}
 
-					lawnLayout[newY][newX] = SquareType.Mower;
+					lawn.set(newX, newY, SquareType.Mower);
 
 					// draw a mower on the new canvas square the mower is now on after moving
-					String state = "Mower" + direction.getName();
-					LawnCanvasJPanel.getInstance().setMowerSquareText(newX, newY, (mower.getId() + 1) + "");
-					LawnCanvasJPanel.getInstance().setActiveColor(newX, newY, Color.RED);
-					LawnCanvasJPanel.getInstance().updateCanvasSquare(newX, newY, CanvasSquareState.valueOf(state),
-							true);
-				} else if (lawnLayout[newY][newX] == SquareType.Puppy_grass
-						|| lawnLayout[newY][newX] == SquareType.Puppy_empty) {
-
-					if (lawnLayout[newY][newX] == SquareType.Puppy_grass) {
+					if (view != null) {
+						String state = "Mower" + direction.getName();
+						view.setMowerSquareText(newX, newY, (mower.getId() + 1) + "");
+						view.setMowerActiveColor(newX, newY);
+						view.updateCanvasSquare(newX, newY, CanvasSquareState.valueOf(state), true);
+					}
+				} else if (target == SquareType.Puppy_grass || target == SquareType.Puppy_empty) {
+
+					if (target == SquareType.Puppy_grass) {
 						incrementGrassCountCount();
 					}
 
-					lawnLayout[newY][newX] = SquareType.Puppy_mower;
+					lawn.set(newX, newY, SquareType.Puppy_mower);
 
 					// draw a mower on the new canvas square the mower is now on after moving
-					String state = "PuppyMower" + direction.getName();
-					LawnCanvasJPanel.getInstance().setMowerSquareText(newX, newY, (mower.getId() + 1) + "");
-					LawnCanvasJPanel.getInstance().setActiveColor(newX, newY, Color.RED);
-					LawnCanvasJPanel.getInstance().updateCanvasSquare(newX, newY, CanvasSquareState.valueOf(state),
-							true);
+					if (view != null) {
+						String state = "PuppyMower" + direction.getName();
+						view.setMowerSquareText(newX, newY, (mower.getId() + 1) + "");
+						view.setMowerActiveColor(newX, newY);
+						view.updateCanvasSquare(newX, newY, CanvasSquareState.valueOf(state), true);
+					}
 
-					stalledMowerIds.add(mower.getId());
+					mowerStatuses.stallByPuppy(mower.getId());
 
 					stalledByPuppy = true;
 					endMove = true;
@@ -901,38 +1843,14 @@ public class Simulator {
 	/**
 	 * Responds to scan request
 	 * 
-	 * @return The scan results
+	 * @return The scan results, packed as a {@link ScanResult}
 	 */
-	private List<String> respondToScan() {
-		List<String> scanResponse = new ArrayList<String>();
-		scanResponse.add(getScanResult(Direction.NORTH));
-		scanResponse.add(getScanResult(Direction.NORTH_EAST));
-		scanResponse.add(getScanResult(Direction.EAST));
-		scanResponse.add(getScanResult(Direction.SOUTH_EAST));
-		scanResponse.add(getScanResult(Direction.SOUTH));
-		scanResponse.add(getScanResult(Direction.SOUTH_WEST));
-		scanResponse.add(getScanResult(Direction.WEST));
-		scanResponse.add(getScanResult(Direction.NORTH_WEST));
-
-		return scanResponse;
-	}
-
-	/**
-	 * Prints the scan response
-	 * 
-	 * @param scanResponse
-	 *            The scan reponse to print
-	 */
-	private void printScanResponse(List<String> scanResponse) {
-		StringBuffer scan = new StringBuffer();
-		for (int i = 0; i < scanResponse.size(); i++) {
-			scan.append(scanResponse.get(i));
-
-			if (i < scanResponse.size() - 1) {
-				scan.append(",");
-			}
+	private int respondToScan(LawnMower mower) {
+		int scanResponse = 0;
+		for (int i = 0; i < ScanResult.SIZE; i++) {
+			scanResponse = ScanResult.with(scanResponse, i, getScanResult(mower, ScanResult.direction(i)));
 		}
-		System.out.println(scan);
+		return scanResponse;
 	}
 
 	/**
@@ -943,10 +1861,11 @@ public class Simulator {
 	 *            The direction to scan
 	 * @return The scanned result
 	 */
-	private String getScanResult(Direction direction) {
+	private SquareType getScanResult(LawnMower mower, Direction direction) {
+		LawnGrid lawn = context.getLawn();
+
 		// x,y in Java convention (x vertical, y horizontal)
-		LawnMower mower = mowers.get(mowerPollingIndex);
-		Square sqr = mowerLocations[mower.getId()];
+		Square sqr = context.getMowerLocations()[mower.getId()];
 		int x = sqr.getX();
 		int y = sqr.getY();
 
@@ -982,10 +1901,10 @@ public class Simulator {
 		default:
 			throw new RuntimeException("Cannot recognize direction");
 		}
-		if (y < 0 || x < 0 || y > lawnHeight - 1 || x > lawnWidth - 1) {
-			return SquareType.Fence.getName();
+		if (!lawn.contains(x, y)) {
+			return SquareType.Fence;
 		}
-		return lawnLayout[y][x].getName();
+		return lawn.get(x, y);
 	}
 
 	/**
@@ -994,13 +1913,16 @@ public class Simulator {
 	 * @return True or false
 	 */
 	public synchronized boolean shouldEndSimulation() {
-		if (mowers.size() == crashedMowerIds.size()) {
+		int crashedCount = mowerStatuses.getCrashedCount();
+		int poweredOffCount = mowerStatuses.getPoweredOffCount();
+
+		if (context.getMowers().size() == crashedCount) {
 			return true;
-		} else if (poweredOffMowerIds.size() == mowers.size()) {
+		} else if (poweredOffCount == context.getMowers().size()) {
 			return true;
 		} else if (turnCount == maxTurns) {
 			return true;
-		} else if (poweredOffMowerIds.size() + crashedMowerIds.size() == mowers.size()) {
+		} else if (poweredOffCount + crashedCount == context.getMowers().size()) {
 			return true;
 		}
 		return false;
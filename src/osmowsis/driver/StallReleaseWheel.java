@@ -0,0 +1,131 @@
+package osmowsis.driver;
+
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * Timing wheel of the turns at which stalled mowers are released. A mower is
+ * filed in the slot of its release turn (release turn modulo the number of
+ * slots), so ending a turn only looks at that turn's slot, and mowers not due
+ * cost nothing. The slots are linked lists threaded through an array indexed
+ * by mower id, so scheduling and releasing allocate nothing.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class StallReleaseWheel {
+
+	/**
+	 * Returned when no mower is due, and the release turn of an unscheduled mower
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The first mower id of each slot
+	 */
+	private int[] slotHeads;
+
+	/**
+	 * The next mower id in the same slot, the index is the id of the mower
+	 */
+	private int[] next;
+
+	/**
+	 * The release turn of each mower, the index is the id of the mower
+	 */
+	private int[] releaseTurns;
+
+	/**
+	 * Constructor
+	 *
+	 * @param slotCount
+	 *            The number of slots; releases up to this many turns ahead never
+	 *            share a slot with a later turn
+	 * @param mowerCount
+	 *            The number of mowers
+	 */
+	public StallReleaseWheel(int slotCount, int mowerCount) {
+		slotHeads = new int[Math.max(slotCount, 1)];
+		next = new int[mowerCount];
+		releaseTurns = new int[mowerCount];
+		Arrays.fill(slotHeads, NONE);
+		Arrays.fill(releaseTurns, NONE);
+	}
+
+	/**
+	 * Returns an independent copy of the wheel
+	 *
+	 * @return The copied {@link StallReleaseWheel}
+	 */
+	public StallReleaseWheel copy() {
+		StallReleaseWheel copy = new StallReleaseWheel(slotHeads.length, next.length);
+		copy.slotHeads = slotHeads.clone();
+		copy.next = next.clone();
+		copy.releaseTurns = releaseTurns.clone();
+		return copy;
+	}
+
+	/**
+	 * Schedules the release of a mower
+	 *
+	 * @param id
+	 *            The mower id
+	 * @param releaseTurn
+	 *            The turn the mower is released at; must be later than the
+	 *            current turn
+	 */
+	public void schedule(int id, int releaseTurn) {
+		int slot = releaseTurn % slotHeads.length;
+		releaseTurns[id] = releaseTurn;
+		next[id] = slotHeads[slot];
+		slotHeads[slot] = id;
+	}
+
+	/**
+	 * If the release of the mower is scheduled
+	 *
+	 * @param id
+	 *            The mower id
+	 * @return True or false
+	 */
+	public boolean isScheduled(int id) {
+		return releaseTurns[id] != NONE;
+	}
+
+	/**
+	 * Returns the turn the mower is released at
+	 *
+	 * @param id
+	 *            The mower id
+	 * @return The release turn, or {@link #NONE}
+	 */
+	public int getReleaseTurn(int id) {
+		return releaseTurns[id];
+	}
+
+	/**
+	 * Removes and returns one mower due for release at the turn
+	 *
+	 * @param turn
+	 *            The current turn
+	 * @return The mower id, or {@link #NONE} when no more mowers are due
+	 */
+	public int pollDue(int turn) {
+		int slot = turn % slotHeads.length;
+		int previous = NONE;
+		for (int id = slotHeads[slot]; id != NONE; id = next[id]) {
+			if (releaseTurns[id] <= turn) {
+				if (previous == NONE) {
+					slotHeads[slot] = next[id];
+				} else {
+					next[previous] = next[id];
+				}
+				releaseTurns[id] = NONE;
+				return id;
+			}
+			previous = id;
+		}
+		return NONE;
+	}
+}
@@ -0,0 +1,292 @@
+package osmowsis.driver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ *
+ *
+ * Runs a sweep of scenario files in one JVM. Every (scenario, seed) pair is
+ * simulated headless and without protocol log on a bounded thread pool, and
+ * the final reports are streamed into one CSV as the runs complete. The seed
+ * drives the puppy random streams, so without --fork-at every line can be
+ * reproduced with Main --seed.
+ *
+ * With --fork-at, every scenario is run once (with the first seed) up to the
+ * given turn, and every seed continues from a fork of that warm-up instead of
+ * from turn 0. Main cannot fork, so these lines can only be reproduced by a
+ * sweep with the same first seed and fork turn; the forkTurn column records
+ * the turn (empty for a run from turn 0).
+ *
+ * Usage: SweepRunner &lt;directory|glob&gt; [--seeds from..to] [--threads n]
+ * [--fork-at turn] [--out file.csv]
+ *
+ * @author Laura  Wang
+ *
+ */
+public class SweepRunner {
+
+	/**
+	 * The CSV header
+	 */
+	private static final String HEADER = "scenario,seed,forkTurn,total,cuttable,cut,turns,wallMillis";
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String scenarios = null;
+		long firstSeed = 0;
+		long lastSeed = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int forkTurn = -1;
+		String out = null;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--seeds")) {
+				String[] range = args[++i].split("\\.\\.");
+				firstSeed = Long.parseLong(range[0]);
+				lastSeed = range.length > 1 ? Long.parseLong(range[1]) : firstSeed;
+			} else if (args[i].equals("--threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--fork-at")) {
+				forkTurn = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--out")) {
+				out = args[++i];
+			} else {
+				scenarios = args[i];
+			}
+		}
+
+		if (scenarios == null) {
+			System.err.println(
+					"Usage: SweepRunner <directory|glob> [--seeds from..to] [--threads n] [--fork-at turn] [--out file.csv]");
+			System.exit(1);
+		}
+
+		List<Path> files = findScenarios(scenarios);
+		Writer writer = new BufferedWriter(
+				new OutputStreamWriter(out == null ? System.out : new FileOutputStream(out), "UTF-8"));
+		try {
+			runSweep(files, firstSeed, lastSeed, threads, forkTurn, writer);
+		} finally {
+			writer.flush();
+			if (out != null) {
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * Runs every scenario with every seed of the range and writes one CSV line per
+	 * run, in completion order
+	 *
+	 * @param files
+	 *            The scenario files
+	 * @param firstSeed
+	 *            The first seed of the range
+	 * @param lastSeed
+	 *            The last seed of the range (inclusive)
+	 * @param threads
+	 *            The number of worker threads
+	 * @param forkTurn
+	 *            The turn to fork the seeds from a shared warm-up run at, or -1 to
+	 *            run every seed from turn 0
+	 * @param writer
+	 *            The CSV output
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static void runSweep(List<Path> files, long firstSeed, long lastSeed, int threads, int forkTurn,
+			Writer writer) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CompletionService<String> completion = new ExecutorCompletionService<String>(executor);
+
+		int submitted = 0;
+		for (Path file : files) {
+			// the warm-up is queued before its forks, so a fork never waits on a
+			// warm-up that has not started
+			Future<Simulator> warmUp = null;
+			if (forkTurn >= 0) {
+				warmUp = executor.submit(new WarmUp(file.toFile(), firstSeed, forkTurn));
+			}
+			for (long seed = firstSeed; seed <= lastSeed; seed++) {
+				completion.submit(new ScenarioRun(file.toFile(), seed, forkTurn, warmUp));
+				submitted += 1;
+			}
+		}
+
+		writer.write(HEADER);
+		writer.write('\n');
+		try {
+			for (int i = 0; i < submitted; i++) {
+				try {
+					writer.write(completion.take().get());
+					writer.write('\n');
+				} catch (ExecutionException e) {
+					System.err.println(e.getCause().getMessage());
+				}
+				if (i % 64 == 63) {
+					writer.flush();
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Finds the scenario files: every regular file of a directory, or every file
+	 * matching a glob pattern
+	 *
+	 * @param scenarios
+	 *            The directory or glob pattern
+	 * @return The sorted list of scenario files
+	 * @throws IOException
+	 */
+	public static List<Path> findScenarios(String scenarios) throws IOException {
+		List<Path> files = new ArrayList<Path>();
+		Path dir = Paths.get(scenarios);
+
+		if (Files.isDirectory(dir)) {
+			try (Stream<Path> list = Files.list(dir)) {
+				list.filter(Files::isRegularFile).forEach(files::add);
+			}
+		} else {
+			// walk from the longest directory prefix without glob characters
+			int glob = 0;
+			while (glob < scenarios.length() && "*?[{".indexOf(scenarios.charAt(glob)) < 0) {
+				glob += 1;
+			}
+			int slash = scenarios.lastIndexOf(File.separatorChar, glob);
+			Path base = Paths.get(slash < 0 ? "." : scenarios.substring(0, slash + 1));
+			String pattern = slash < 0 ? base.resolve(scenarios).normalize().toString() : scenarios;
+			PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+			try (Stream<Path> walk = Files.walk(base)) {
+				walk.filter(Files::isRegularFile).filter(p -> matcher.matches(slash < 0 ? p.normalize() : p))
+						.forEach(files::add);
+			}
+		}
+
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns a CSV field for the text, quoted the RFC 4180 way when it contains
+	 * a comma, a quote or a line break
+	 *
+	 * @param text
+	 *            The text
+	 * @return The field
+	 */
+	private static String csvField(String text) {
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return '"' + text.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Runs a scenario file headless up to the turn its seeds are forked at
+	 */
+	private static class WarmUp implements Callable<Simulator> {
+
+		private File file;
+		private long seed;
+		private int forkTurn;
+
+		private WarmUp(File file, long seed, int forkTurn) {
+			this.file = file;
+			this.seed = seed;
+			this.forkTurn = forkTurn;
+		}
+
+		@Override
+		public Simulator call() throws Exception {
+			Simulator sim = new Simulator();
+			sim.setProtocolLog(new ProtocolLog());
+			sim.setSeed(seed);
+			sim.initSimulation(file);
+			while (sim.getTurnCount() < forkTurn && !sim.run()) {
+				// run until the turn to fork at
+			}
+			return sim;
+		}
+	}
+
+	/**
+	 * One headless simulation run of a scenario file, from turn 0 or from a fork
+	 * of a warm-up run
+	 */
+	private static class ScenarioRun implements Callable<String> {
+
+		private File file;
+		private long seed;
+		private int forkTurn;
+		private Future<Simulator> warmUp;
+
+		private ScenarioRun(File file, long seed, int forkTurn, Future<Simulator> warmUp) {
+			this.file = file;
+			this.seed = seed;
+			this.forkTurn = forkTurn;
+			this.warmUp = warmUp;
+		}
+
+		@Override
+		public String call() throws Exception {
+			long start = System.nanoTime();
+
+			Simulator sim;
+			try {
+				if (warmUp != null) {
+					sim = warmUp.get().fork(seed);
+				} else {
+					sim = new Simulator();
+					sim.setProtocolLog(new ProtocolLog());
+					sim.setSeed(seed);
+					sim.initSimulation(file);
+				}
+				sim.runToCompletion();
+			} catch (ExecutionException e) {
+				throw new Exception(file + ": " + e.getCause(), e.getCause());
+			} catch (IOException | RuntimeException e) {
+				throw new Exception(file + ": " + e, e);
+			}
+
+			long wallMillis = (System.nanoTime() - start) / 1000000;
+
+			StringBuffer line = new StringBuffer();
+			line.append(csvField(file.getPath()));
+			line.append(",");
+			line.append(seed);
+			line.append(",");
+			if (warmUp != null) {
+				line.append(forkTurn);
+			}
+			line.append(",");
+			line.append(sim.getFinalReport());
+			line.append(",");
+			line.append(wallMillis);
+			return line.toString();
+		}
+	}
+}
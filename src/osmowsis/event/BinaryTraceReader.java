@@ -0,0 +1,224 @@
+package osmowsis.event;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+import osmowsis.misc.Direction;
+
+/**
+ *
+ *
+ * Reads a trace written by {@link BinaryTraceSink}, compressed or not, and
+ * replays its events into a sink, one turn at a time.
+ *
+ * Usage: BinaryTraceReader trace [text]
+ *
+ * prints the trace in the text protocol format, on the standard output or in
+ * the given file.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class BinaryTraceReader implements Closeable {
+
+	private static final int GZIP_MAGIC = 0x8b1f;
+
+	private static final EventType[] TYPES = EventType.values();
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private DataInputStream in;
+
+	private TraceState state = new TraceState();
+
+	private SimulationEvent event = new SimulationEvent();
+
+	private byte[] frame = new byte[4096];
+
+	private int position;
+
+	private int length;
+
+	private boolean started;
+
+	/**
+	 * Constructor
+	 *
+	 * @param in
+	 *            The stream to read the trace from
+	 * @throws IOException
+	 */
+	public BinaryTraceReader(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+		buffered.mark(2);
+		int magic = buffered.read() | (buffered.read() << 8);
+		buffered.reset();
+		this.in = new DataInputStream(magic == GZIP_MAGIC ? new GZIPInputStream(buffered, 1 << 16) : buffered);
+	}
+
+	/**
+	 * Replays the events of the next turn
+	 *
+	 * @param sink
+	 *            The {@link EventSink} to replay into
+	 * @return False at the end of the trace
+	 * @throws IOException
+	 */
+	public boolean readTurn(EventSink sink) throws IOException {
+		if (!started) {
+			if (readVarint() != TraceState.MAGIC) {
+				throw new IOException("Not a simulation trace");
+			}
+			int version = readVarint();
+			if (version != TraceState.VERSION) {
+				throw new IOException("Unsupported trace version: " + version);
+			}
+			started = true;
+		}
+
+		int first = in.read();
+		if (first < 0) {
+			return false;
+		}
+		length = (first & 0x80) == 0 ? first : (first & 0x7f) | (readVarint() << 7);
+		if (frame.length < length) {
+			frame = new byte[Math.max(length, frame.length * 2)];
+		}
+		in.readFully(frame, 0, length);
+		position = 0;
+		while (position < length) {
+			decode();
+			sink.onEvent(event);
+		}
+		return true;
+	}
+
+	/**
+	 * Replays all remaining events and flushes the sink
+	 *
+	 * @param sink
+	 *            The {@link EventSink} to replay into
+	 * @throws IOException
+	 */
+	public void readAll(EventSink sink) throws IOException {
+		while (readTurn(sink)) {
+			// replay turn by turn
+		}
+		sink.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void decode() throws IOException {
+		int tag = frame[position++] & 0xff;
+		if (tag >= TYPES.length) {
+			throw new IOException("Corrupt trace: unknown event " + tag);
+		}
+		EventType type = TYPES[tag];
+		if (type == EventType.TurnEnded) {
+			event.reset(type, 0).setTurn(state.turn(nextVarint()));
+			return;
+		}
+		if (type == EventType.SimulationEnded) {
+			event.reset(type, 0).setReport(nextVarint(), nextVarint(), nextVarint(), nextVarint());
+			return;
+		}
+
+		int id = state.agentId(type, TraceState.unzigzag(nextVarint()));
+		event.reset(type, id);
+		switch (type) {
+		case MowerPolled:
+			event.setActionCode(nextVarint());
+			break;
+		case PuppyPolled:
+			int code = nextVarint();
+			event.setActionCode(code);
+			nextPosition(false, id, TraceState.isStay(code));
+			break;
+		case Scanned:
+			event.setScan(nextVarint());
+			break;
+		case Moved:
+			int move = nextVarint();
+			event.setSteps(move / 8).setDirection(DIRECTIONS[move % 8]);
+			nextPosition(true, id, true);
+			break;
+		case Stalled:
+			event.setSteps(nextVarint());
+			nextPosition(true, id, true);
+			break;
+		case PuppyMoved:
+			nextPosition(false, id, true);
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void nextPosition(boolean mower, int id, boolean moves) throws IOException {
+		int x = state.lastX(mower, id) + TraceState.unzigzag(nextVarint());
+		int y = state.lastY(mower, id) + TraceState.unzigzag(nextVarint());
+		event.setPosition(x, y);
+		if (moves) {
+			state.moveTo(mower, id, x, y);
+		}
+	}
+
+	private int nextVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (position >= length) {
+				throw new IOException("Corrupt trace: truncated event");
+			}
+			int b = frame[position++];
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Corrupt trace: bad varint");
+	}
+
+	private int readVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Truncated trace");
+			}
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Corrupt trace: bad varint");
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: BinaryTraceReader trace [text]");
+			System.exit(1);
+		}
+		try (BinaryTraceReader reader = new BinaryTraceReader(new FileInputStream(args[0]));
+				OutputStream out = args.length > 1 ? new FileOutputStream(args[1])
+						: new FileOutputStream(FileDescriptor.out)) {
+			TextProtocolSink text = new TextProtocolSink(out, Verbosity.Full);
+			reader.readAll(text);
+			if (text.checkError()) {
+				throw new IOException("Failed to write the text protocol");
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package osmowsis.event;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ *
+ *
+ * Writes the events as a compact binary trace, one frame per turn (see
+ * {@link TraceState} for the format); {@link BinaryTraceReader} reads it back.
+ * A turn is written when it ends, and the compressed stream is finished with
+ * the final report. Like {@link TextProtocolSink}, the sink never fails the
+ * run: once writing fails it drops the rest of the trace, see
+ * {@link #checkError()}.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class BinaryTraceSink implements EventSink {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private OutputStream out;
+
+	private TraceState state = new TraceState();
+
+	/**
+	 * The events of the current turn
+	 */
+	private byte[] frame = new byte[4096];
+
+	private int length;
+
+	/**
+	 * Buffer for the frame length
+	 */
+	private byte[] header = new byte[5];
+
+	private boolean started;
+
+	private boolean error;
+
+	/**
+	 * Constructor
+	 *
+	 * @param out
+	 *            The stream to write to; the owner closes it
+	 * @param compress
+	 *            If the trace is gzipped
+	 * @throws IOException
+	 */
+	public BinaryTraceSink(OutputStream out, boolean compress) throws IOException {
+		this.out = compress ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+	}
+
+	@Override
+	public void onEvent(SimulationEvent event) {
+		if (error) {
+			return;
+		}
+		EventType type = event.getType();
+		putByte(type.ordinal());
+		switch (type) {
+		case TurnEnded:
+			putVarint(state.turnDelta(event.getTurn()));
+			writeFrame();
+			return;
+		case SimulationEnded:
+			putVarint(event.getTotalSquares());
+			putVarint(event.getCuttableSquares());
+			putVarint(event.getGrassCut());
+			putVarint(event.getTurn());
+			writeFrame();
+			finish();
+			return;
+		default:
+			break;
+		}
+
+		int id = event.getAgentId();
+		putVarint(TraceState.zigzag(state.agentDelta(type, id)));
+		switch (type) {
+		case MowerPolled:
+		case PuppyPolled:
+			putVarint(event.getActionCode());
+			if (type == EventType.PuppyPolled) {
+				putPosition(false, id, event, TraceState.isStay(event.getActionCode()));
+			}
+			break;
+		case Scanned:
+			putVarint(event.getScan());
+			break;
+		case Moved:
+			putVarint(event.getSteps() * 8 + event.getDirection().ordinal());
+			putPosition(true, id, event, true);
+			break;
+		case Stalled:
+			putVarint(event.getSteps());
+			putPosition(true, id, event, true);
+			break;
+		case PuppyMoved:
+			putPosition(false, id, event, true);
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (!error) {
+			try {
+				out.flush();
+			} catch (IOException e) {
+				error = true;
+			}
+		}
+	}
+
+	/**
+	 * If writing the trace failed
+	 *
+	 * @return True or false
+	 */
+	public boolean checkError() {
+		return error;
+	}
+
+	private void putPosition(boolean mower, int id, SimulationEvent event, boolean moves) {
+		putVarint(TraceState.zigzag(event.getX() - state.lastX(mower, id)));
+		putVarint(TraceState.zigzag(event.getY() - state.lastY(mower, id)));
+		if (moves) {
+			state.moveTo(mower, id, event.getX(), event.getY());
+		}
+	}
+
+	private void putByte(int value) {
+		if (length == frame.length) {
+			frame = Arrays.copyOf(frame, length * 2);
+		}
+		frame[length++] = (byte) value;
+	}
+
+	private void putVarint(int value) {
+		while ((value & ~0x7f) != 0) {
+			putByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		putByte(value);
+	}
+
+	private void writeFrame() {
+		try {
+			if (!started) {
+				writeVarint(TraceState.MAGIC);
+				writeVarint(TraceState.VERSION);
+				started = true;
+			}
+			writeVarint(length);
+			out.write(frame, 0, length);
+		} catch (IOException e) {
+			error = true;
+		}
+		length = 0;
+	}
+
+	private void writeVarint(int value) throws IOException {
+		int n = 0;
+		while ((value & ~0x7f) != 0) {
+			header[n++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		header[n++] = (byte) value;
+		out.write(header, 0, n);
+	}
+
+	private void finish() {
+		if (!error && out instanceof GZIPOutputStream) {
+			try {
+				((GZIPOutputStream) out).finish();
+			} catch (IOException e) {
+				error = true;
+			}
+		}
+	}
+}
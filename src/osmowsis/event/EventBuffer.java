@@ -0,0 +1,50 @@
+package osmowsis.event;
+
+import java.util.Arrays;
+
+/**
+ * 
+ * 
+ * An {@link EventPublisher} that keeps the events in memory until they are
+ * republished in order with {@link #drainTo(EventPublisher)}; lets agents
+ * committed on other threads publish their events in a fixed order.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public class EventBuffer implements EventPublisher {
+
+	private SimulationEvent[] events = new SimulationEvent[16];
+
+	private int size;
+
+	@Override
+	public SimulationEvent claim() {
+		if (size == events.length) {
+			events = Arrays.copyOf(events, size * 2);
+		}
+		if (events[size] == null) {
+			events[size] = new SimulationEvent();
+		}
+		return events[size];
+	}
+
+	@Override
+	public void publish() {
+		size += 1;
+	}
+
+	/**
+	 * Publishes the buffered events to another publisher, and empties the buffer
+	 * 
+	 * @param target
+	 *            The {@link EventPublisher}
+	 */
+	public void drainTo(EventPublisher target) {
+		for (int i = 0; i < size; i++) {
+			target.claim().copyFrom(events[i]);
+			target.publish();
+		}
+		size = 0;
+	}
+}
@@ -0,0 +1,25 @@
+package osmowsis.event;
+
+/**
+ * 
+ * 
+ * Where the simulator publishes its events: a slot is claimed, filled and
+ * published, so publishing allocates nothing. Used from one thread at a time.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public interface EventPublisher {
+
+	/**
+	 * Claims the next event slot
+	 * 
+	 * @return The {@link SimulationEvent} to fill
+	 */
+	SimulationEvent claim();
+
+	/**
+	 * Publishes the claimed event
+	 */
+	void publish();
+}
@@ -0,0 +1,248 @@
+package osmowsis.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ *
+ *
+ * A lock-free single-producer ring buffer delivering events to sinks on a
+ * consumer thread. The slots are allocated with the first event and reused, so
+ * a ring nothing is published to costs next to nothing. The producer and the
+ * consumer only exchange sequence numbers, and the consumer hands every event
+ * to the sinks in publishing order. The producer waits only when the ring
+ * is full. The consumer flushes the sinks whenever it runs out of events, so
+ * sinks write in batches and still keep up with a slow run. The consumer thread
+ * starts with the first event and stops on {@link #close()}.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class EventRing implements EventPublisher {
+
+	/**
+	 * Default number of slots
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+
+	/**
+	 * The slots; null until the first event
+	 */
+	private SimulationEvent[] slots;
+
+	private final int mask;
+
+	private final EventSink[] sinks;
+
+	/**
+	 * Number of events claimed; only used by the producer
+	 */
+	private long claimed;
+
+	/**
+	 * Number of events published
+	 */
+	private final AtomicLong published = new AtomicLong();
+
+	/**
+	 * Number of events handed to the sinks
+	 */
+	private final AtomicLong consumed = new AtomicLong();
+
+	/**
+	 * The number of published events the producer asks the sinks to be flushed
+	 * up to
+	 */
+	private final AtomicLong flushRequested = new AtomicLong();
+
+	/**
+	 * The number of events the sinks have been flushed up to
+	 */
+	private final AtomicLong flushed = new AtomicLong();
+
+	private volatile Thread consumer;
+
+	/**
+	 * If the consumer is parked waiting for events
+	 */
+	private volatile boolean consumerWaiting;
+
+	private volatile boolean stopping;
+
+	/**
+	 * The first failure of a sink; rethrown to the producer
+	 */
+	private volatile RuntimeException failure;
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity
+	 *            The number of slots, a power of two
+	 * @param sinks
+	 *            The sinks to deliver to
+	 */
+	public EventRing(int capacity, EventSink... sinks) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		mask = capacity - 1;
+		this.sinks = sinks.clone();
+	}
+
+	@Override
+	public SimulationEvent claim() {
+		if (consumer == null) {
+			start();
+		}
+		for (int attempt = 0; claimed - consumed.get() >= slots.length; attempt++) {
+			checkFailure();
+			backOff(attempt);
+		}
+		return slots[(int) claimed & mask];
+	}
+
+	@Override
+	public void publish() {
+		claimed += 1;
+		published.set(claimed);
+		if (consumerWaiting) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * Waits until the sinks have handled and flushed every published event
+	 */
+	public void flush() {
+		if (consumer == null) {
+			return;
+		}
+		long target = claimed;
+		flushRequested.set(target);
+		LockSupport.unpark(consumer);
+		for (int attempt = 0; flushed.get() < target; attempt++) {
+			checkFailure();
+			backOff(attempt);
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Flushes the sinks and stops the consumer thread; publishing again starts a
+	 * new one
+	 */
+	public void close() {
+		if (consumer == null) {
+			return;
+		}
+		flush();
+		stopping = true;
+		LockSupport.unpark(consumer);
+		try {
+			consumer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		consumer = null;
+		stopping = false;
+	}
+
+	private void start() {
+		if (slots == null) {
+			slots = new SimulationEvent[mask + 1];
+			for (int i = 0; i < slots.length; i++) {
+				slots[i] = new SimulationEvent();
+			}
+		}
+		Thread thread = new Thread(this::consume, "simulation-events");
+		thread.setDaemon(true);
+		consumer = thread;
+		thread.start();
+	}
+
+	/**
+	 * The consumer loop
+	 */
+	private void consume() {
+		long next = consumed.get();
+		long sinksFlushed = next;
+		while (true) {
+			long available = published.get();
+			if (next < available) {
+				for (; next < available; next++) {
+					deliver(slots[(int) next & mask]);
+				}
+				consumed.set(next);
+				continue;
+			}
+
+			long flushTarget = flushRequested.get();
+			if (flushed.get() < flushTarget && next >= flushTarget) {
+				flushSinks();
+				sinksFlushed = next;
+				flushed.set(flushTarget);
+				continue;
+			}
+
+			if (sinksFlushed < next) {
+				flushSinks();
+				sinksFlushed = next;
+				continue;
+			}
+
+			if (stopping) {
+				return;
+			}
+
+			consumerWaiting = true;
+			if (published.get() == next && flushRequested.get() == flushed.get() && !stopping) {
+				LockSupport.park(this);
+			}
+			consumerWaiting = false;
+		}
+	}
+
+	private void flushSinks() {
+		for (EventSink sink : sinks) {
+			try {
+				sink.flush();
+			} catch (RuntimeException e) {
+				fail(e);
+			}
+		}
+	}
+
+	private void deliver(SimulationEvent event) {
+		for (EventSink sink : sinks) {
+			try {
+				sink.onEvent(event);
+			} catch (RuntimeException e) {
+				fail(e);
+			}
+		}
+	}
+
+	private void fail(RuntimeException e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	private void checkFailure() {
+		RuntimeException e = failure;
+		if (e != null) {
+			throw new IllegalStateException("Event sink failed", e);
+		}
+	}
+
+	private static void backOff(int attempt) {
+		if (attempt < 64) {
+			Thread.onSpinWait();
+		} else if (attempt < 128) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(20_000L);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package osmowsis.event;
+
+/**
+ * 
+ * 
+ * Receives the events of a simulation run, in order, on one thread
+ * 
+ * @author Laura  Wang
+ *
+ */
+public interface EventSink {
+
+	/**
+	 * Handles an event
+	 * 
+	 * @param event
+	 *            The {@link SimulationEvent}, only valid during the call
+	 */
+	void onEvent(SimulationEvent event);
+
+	/**
+	 * Writes out whatever the sink buffers; called when the run is flushed and
+	 * whenever the sink has caught up with the run
+	 */
+	default void flush() {
+	}
+}
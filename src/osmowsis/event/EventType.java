@@ -0,0 +1,68 @@
+package osmowsis.event;
+
+/**
+ * 
+ * 
+ * The type enum for simulation events
+ * 
+ * @author Laura  Wang
+ *
+ */
+public enum EventType {
+
+	/**
+	 * A mower was polled; the action code is a {@link osmowsis.model.lawnmower.MowerAction} code
+	 */
+	MowerPolled,
+
+	/**
+	 * A mower got the scan result of its surrounding squares
+	 */
+	Scanned,
+
+	/**
+	 * A mower completed its move; position and direction after the move
+	 */
+	Moved,
+
+	/**
+	 * A mower turned off
+	 */
+	TurnedOff,
+
+	/**
+	 * A mower stalled after the given steps; position after the steps taken
+	 */
+	Stalled,
+
+	/**
+	 * A mower crashed
+	 */
+	Crashed,
+
+	/**
+	 * A puppy was polled; the action code is a {@link osmowsis.model.puppy.PuppyAction} code, the position
+	 * is the destination of a move
+	 */
+	PuppyPolled,
+
+	/**
+	 * A puppy moved; position after the move
+	 */
+	PuppyMoved,
+
+	/**
+	 * A puppy stayed
+	 */
+	PuppyStayed,
+
+	/**
+	 * A turn ended
+	 */
+	TurnEnded,
+
+	/**
+	 * The simulation ended, with the final report
+	 */
+	SimulationEnded
+}
@@ -0,0 +1,204 @@
+package osmowsis.event;
+
+import osmowsis.misc.Direction;
+
+/**
+ * 
+ * 
+ * One event of a simulation run. Events are mutable and reused: a sink gets an
+ * event that is only valid during the call, and must copy what it keeps.
+ * Positions are in the coordinates of the scenario file and the protocol (y is
+ * 0 at the bottom). Each {@link EventType} documents the fields it sets; the
+ * others are 0 or null.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public class SimulationEvent {
+
+	private EventType type;
+
+	/**
+	 * The mower or puppy id (0,1,2...)
+	 */
+	private int agentId;
+
+	/**
+	 * The action code of a poll, or the packed scan result
+	 */
+	private int code;
+
+	private int steps;
+
+	private Direction direction;
+
+	private int x;
+
+	private int y;
+
+	/**
+	 * The number of turns run so far
+	 */
+	private int turn;
+
+	private int totalSquares;
+
+	private int cuttableSquares;
+
+	private int grassCut;
+
+	/**
+	 * Clears the event and sets its type and agent
+	 * 
+	 * @param type
+	 *            The {@link EventType}
+	 * @param agentId
+	 *            The mower or puppy id, or 0
+	 * @return This event
+	 */
+	public SimulationEvent reset(EventType type, int agentId) {
+		this.type = type;
+		this.agentId = agentId;
+		code = 0;
+		steps = 0;
+		direction = null;
+		x = 0;
+		y = 0;
+		turn = 0;
+		totalSquares = 0;
+		cuttableSquares = 0;
+		grassCut = 0;
+		return this;
+	}
+
+	/**
+	 * Copies all fields of another event
+	 * 
+	 * @param other
+	 *            The event to copy
+	 */
+	public void copyFrom(SimulationEvent other) {
+		type = other.type;
+		agentId = other.agentId;
+		code = other.code;
+		steps = other.steps;
+		direction = other.direction;
+		x = other.x;
+		y = other.y;
+		turn = other.turn;
+		totalSquares = other.totalSquares;
+		cuttableSquares = other.cuttableSquares;
+		grassCut = other.grassCut;
+	}
+
+	public EventType getType() {
+		return type;
+	}
+
+	public int getAgentId() {
+		return agentId;
+	}
+
+	/**
+	 * Returns the action code of a {@link EventType#MowerPolled} or
+	 * {@link EventType#PuppyPolled} event
+	 * 
+	 * @return The code
+	 */
+	public int getActionCode() {
+		return code;
+	}
+
+	public SimulationEvent setActionCode(int code) {
+		this.code = code;
+		return this;
+	}
+
+	/**
+	 * Returns the scan result of a {@link EventType#Scanned} event
+	 * 
+	 * @return The scan result, packed as a {@link osmowsis.misc.ScanResult}
+	 */
+	public int getScan() {
+		return code;
+	}
+
+	public SimulationEvent setScan(int scan) {
+		this.code = scan;
+		return this;
+	}
+
+	public int getSteps() {
+		return steps;
+	}
+
+	public SimulationEvent setSteps(int steps) {
+		this.steps = steps;
+		return this;
+	}
+
+	public Direction getDirection() {
+		return direction;
+	}
+
+	public SimulationEvent setDirection(Direction direction) {
+		this.direction = direction;
+		return this;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public SimulationEvent setPosition(int x, int y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public SimulationEvent setTurn(int turn) {
+		this.turn = turn;
+		return this;
+	}
+
+	public int getTotalSquares() {
+		return totalSquares;
+	}
+
+	public int getCuttableSquares() {
+		return cuttableSquares;
+	}
+
+	public int getGrassCut() {
+		return grassCut;
+	}
+
+	/**
+	 * Sets the final report of a {@link EventType#SimulationEnded} event
+	 * 
+	 * @param totalSquares
+	 *            The number of squares on the lawn
+	 * @param cuttableSquares
+	 *            The number of grass squares at the start
+	 * @param grassCut
+	 *            The number of grass squares cut
+	 * @param turn
+	 *            The number of turns run
+	 * @return This event
+	 */
+	public SimulationEvent setReport(int totalSquares, int cuttableSquares, int grassCut, int turn) {
+		this.totalSquares = totalSquares;
+		this.cuttableSquares = cuttableSquares;
+		this.grassCut = grassCut;
+		this.turn = turn;
+		return this;
+	}
+}
@@ -0,0 +1,248 @@
+package osmowsis.event;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import osmowsis.misc.Direction;
+import osmowsis.misc.ScanResult;
+import osmowsis.misc.SquareType;
+import osmowsis.model.lawnmower.MowerAction;
+import osmowsis.model.lawnmower.MowerActionType;
+import osmowsis.model.puppy.PuppyAction;
+import osmowsis.model.puppy.PuppyActionType;
+
+/**
+ *
+ *
+ * Prints the events in the text protocol format: the polled actions, the
+ * simulator responses and the final report, as far as the {@link Verbosity}
+ * asks for. The lines are formatted straight into a large direct buffer, which
+ * is written to the channel in one go when it fills up and when the sink is
+ * flushed. Runs on the consumer thread of the {@link EventRing}, so a slow pipe
+ * or terminal holds up the ring rather than the simulation. Like a
+ * {@link java.io.PrintStream}, the sink never fails the run: once writing fails
+ * it drops the rest of the output, see {@link #checkError()}.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class TextProtocolSink implements EventSink {
+
+	/**
+	 * Size of the output buffer in bytes
+	 */
+	public static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Room kept free for the longest line (a scan response)
+	 */
+	private static final int MAX_LINE = 256;
+
+	private static final byte[] MOWER = ascii("mower,");
+	private static final byte[] PUPPY = ascii("puppy,");
+	private static final byte[] SCAN = ascii("scan");
+	private static final byte[] TURN_OFF = ascii("turn_off");
+	private static final byte[] MOVE = ascii("move,");
+	private static final byte[] STAY = ascii("stay");
+	private static final byte[] OK = ascii("ok");
+	private static final byte[] STALL = ascii("stall,");
+	private static final byte[] CRASH = ascii("crash");
+	private static final byte[] NEW_LINE = ascii(System.lineSeparator());
+
+	/**
+	 * Direction names in the protocol, by ordinal
+	 */
+	private static final byte[][] DIRECTIONS = new byte[Direction.values().length][];
+
+	/**
+	 * Square type names in the protocol, by code
+	 */
+	private static final byte[][] SQUARE_TYPES = new byte[SquareType.values().length][];
+
+	static {
+		for (Direction dir : Direction.values()) {
+			DIRECTIONS[dir.ordinal()] = ascii(dir.getName().toLowerCase());
+		}
+		for (SquareType type : SquareType.values()) {
+			SQUARE_TYPES[type.getCode()] = ascii(type.getName());
+		}
+	}
+
+	private WritableByteChannel out;
+
+	private Verbosity verbosity;
+
+	/**
+	 * Allocated with the first line
+	 */
+	private ByteBuffer buffer;
+
+	/**
+	 * Digits of the int being printed
+	 */
+	private byte[] digits = new byte[11];
+
+	private volatile boolean error;
+
+	/**
+	 * Constructor
+	 *
+	 * @param out
+	 *            The channel to write to
+	 * @param verbosity
+	 *            The {@link Verbosity}
+	 */
+	public TextProtocolSink(WritableByteChannel out, Verbosity verbosity) {
+		this.out = out;
+		this.verbosity = verbosity;
+	}
+
+	/**
+	 * Constructor; writes to a file stream through its channel
+	 *
+	 * @param out
+	 *            The stream to write to
+	 * @param verbosity
+	 *            The {@link Verbosity}
+	 */
+	public TextProtocolSink(OutputStream out, Verbosity verbosity) {
+		this(out instanceof FileOutputStream ? ((FileOutputStream) out).getChannel() : Channels.newChannel(out),
+				verbosity);
+	}
+
+	@Override
+	public void onEvent(SimulationEvent event) {
+		if (error || !verbosity.prints(event.getType())) {
+			return;
+		}
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		} else if (buffer.remaining() < MAX_LINE) {
+			drain();
+		}
+
+		switch (event.getType()) {
+		case MowerPolled:
+			put(MOWER).putInt(event.getAgentId() + 1).newLine();
+			MowerAction action = MowerAction.fromCode(event.getActionCode());
+			if (action.getType() == MowerActionType.Scan) {
+				put(SCAN);
+			} else if (action.getType() == MowerActionType.Turn_off) {
+				put(TURN_OFF);
+			} else {
+				put(MOVE).putInt(action.getSteps()).put(',').put(DIRECTIONS[action.getNewDirection().ordinal()]);
+			}
+			newLine();
+			break;
+		case Scanned:
+			int scan = event.getScan();
+			for (int i = 0; i < ScanResult.SIZE; i++) {
+				if (i > 0) {
+					put(',');
+				}
+				put(SQUARE_TYPES[ScanResult.get(scan, i).getCode()]);
+			}
+			newLine();
+			break;
+		case Moved:
+		case TurnedOff:
+		case PuppyMoved:
+		case PuppyStayed:
+			put(OK).newLine();
+			break;
+		case Stalled:
+			put(STALL).putInt(event.getSteps()).newLine();
+			break;
+		case Crashed:
+			put(CRASH).newLine();
+			break;
+		case PuppyPolled:
+			put(PUPPY).putInt(event.getAgentId() + 1).newLine();
+			if (PuppyAction.fromCode(event.getActionCode()).getType() == PuppyActionType.Stay) {
+				put(STAY);
+			} else {
+				put(MOVE).putInt(event.getX()).put(',').putInt(event.getY());
+			}
+			newLine();
+			break;
+		case SimulationEnded:
+			putInt(event.getTotalSquares()).put(',').putInt(event.getCuttableSquares()).put(',')
+					.putInt(event.getGrassCut()).put(',').putInt(event.getTurn()).newLine();
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (buffer != null && buffer.position() > 0) {
+			drain();
+		}
+	}
+
+	/**
+	 * Writes out the buffer and empties it
+	 */
+	private void drain() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+		} catch (IOException e) {
+			error = true;
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * If writing to the channel failed
+	 * 
+	 * @return True or false
+	 */
+	public boolean checkError() {
+		return error;
+	}
+
+	private TextProtocolSink put(byte[] text) {
+		buffer.put(text);
+		return this;
+	}
+
+	private TextProtocolSink put(char c) {
+		buffer.put((byte) c);
+		return this;
+	}
+
+	private TextProtocolSink putInt(int value) {
+		long v = value;
+		if (v < 0) {
+			buffer.put((byte) '-');
+			v = -v;
+		}
+		int n = 0;
+		do {
+			digits[n++] = (byte) ('0' + v % 10);
+			v /= 10;
+		} while (v > 0);
+		while (n > 0) {
+			buffer.put(digits[--n]);
+		}
+		return this;
+	}
+
+	private void newLine() {
+		buffer.put(NEW_LINE);
+	}
+
+	private static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,142 @@
+package osmowsis.event;
+
+import java.util.Arrays;
+
+import osmowsis.model.puppy.PuppyAction;
+import osmowsis.model.puppy.PuppyActionType;
+
+/**
+ *
+ *
+ * The state the binary trace encodes its deltas against, kept in step by the
+ * {@link BinaryTraceSink} and the {@link BinaryTraceReader}: the last mower and
+ * puppy ids, the last known position of every agent and the last turn.
+ *
+ * The trace is a header (the magic number and the version as varints), then
+ * frames of one turn each: the length of the frame in bytes as a varint, then
+ * the events of the turn, up to and including its {@link EventType#TurnEnded}
+ * (or {@link EventType#SimulationEnded}). An event is its {@link EventType}
+ * ordinal in one byte, then the zigzag varint delta of the agent id to the last
+ * id of the same kind, then its fields; positions are zigzag varint deltas to
+ * the last known position of the agent, which a puppy that stays reports too. A
+ * compressed trace is the same stream, gzipped.
+ *
+ * @author Laura  Wang
+ *
+ */
+class TraceState {
+
+	static final int MAGIC = 0x4f534d54;
+
+	static final int VERSION = 1;
+
+	private int lastMowerId = -1;
+
+	private int lastPuppyId = -1;
+
+	private int lastTurn;
+
+	private int[] mowerX = new int[0];
+
+	private int[] mowerY = new int[0];
+
+	private int[] puppyX = new int[0];
+
+	private int[] puppyY = new int[0];
+
+	/**
+	 * If the events of the type are about a mower rather than a puppy
+	 */
+	static boolean isMowerEvent(EventType type) {
+		return type.ordinal() < EventType.PuppyPolled.ordinal();
+	}
+
+	/**
+	 * Returns the id delta to encode, and takes the id as the last one of its kind
+	 */
+	int agentDelta(EventType type, int agentId) {
+		int delta;
+		if (isMowerEvent(type)) {
+			delta = agentId - lastMowerId;
+			lastMowerId = agentId;
+		} else {
+			delta = agentId - lastPuppyId;
+			lastPuppyId = agentId;
+		}
+		return delta;
+	}
+
+	/**
+	 * Returns the id for a decoded delta, and takes it as the last one of its kind
+	 */
+	int agentId(EventType type, int delta) {
+		if (isMowerEvent(type)) {
+			lastMowerId += delta;
+			return lastMowerId;
+		}
+		lastPuppyId += delta;
+		return lastPuppyId;
+	}
+
+	int turnDelta(int turn) {
+		int delta = turn - lastTurn;
+		lastTurn = turn;
+		return delta;
+	}
+
+	int turn(int delta) {
+		lastTurn += delta;
+		return lastTurn;
+	}
+
+	int lastX(boolean mower, int agentId) {
+		int[] xs = mower ? mowerX : puppyX;
+		return agentId < xs.length ? xs[agentId] : 0;
+	}
+
+	int lastY(boolean mower, int agentId) {
+		int[] ys = mower ? mowerY : puppyY;
+		return agentId < ys.length ? ys[agentId] : 0;
+	}
+
+	/**
+	 * Records the position of an agent after a move
+	 */
+	void moveTo(boolean mower, int agentId, int x, int y) {
+		if (mower) {
+			if (agentId >= mowerX.length) {
+				mowerX = grow(mowerX, agentId);
+				mowerY = grow(mowerY, agentId);
+			}
+			mowerX[agentId] = x;
+			mowerY[agentId] = y;
+		} else {
+			if (agentId >= puppyX.length) {
+				puppyX = grow(puppyX, agentId);
+				puppyY = grow(puppyY, agentId);
+			}
+			puppyX[agentId] = x;
+			puppyY[agentId] = y;
+		}
+	}
+
+	private static int[] grow(int[] values, int index) {
+		return Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+	}
+
+	/**
+	 * If a puppy action code is a stay; the position of the poll is then where the
+	 * puppy is
+	 */
+	static boolean isStay(int puppyActionCode) {
+		return PuppyAction.fromCode(puppyActionCode).getType() == PuppyActionType.Stay;
+	}
+
+	static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
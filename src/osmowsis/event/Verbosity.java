@@ -0,0 +1,62 @@
+package osmowsis.event;
+
+/**
+ *
+ *
+ * How much of the protocol the text log prints
+ *
+ * @author Laura  Wang
+ *
+ */
+public enum Verbosity {
+
+	/**
+	 * The polled actions, the simulator responses and the final report
+	 */
+	Full,
+
+	/**
+	 * The polled actions and the final report
+	 */
+	Actions,
+
+	/**
+	 * The final report only
+	 */
+	Report;
+
+	/**
+	 * If the text log prints events of the type
+	 *
+	 * @param type
+	 *            The {@link EventType}
+	 * @return True or false
+	 */
+	public boolean prints(EventType type) {
+		switch (type) {
+		case SimulationEnded:
+			return true;
+		case MowerPolled:
+		case PuppyPolled:
+			return this != Report;
+		default:
+			return this == Full;
+		}
+	}
+
+	/**
+	 * Get the verbosity from its name, ignoring case
+	 *
+	 * @param name
+	 *            The name (etc "full", "actions", "report")
+	 * @return The {@link Verbosity}
+	 */
+	public static Verbosity fromName(String name) {
+		for (Verbosity verbosity : values()) {
+			if (verbosity.name().equalsIgnoreCase(name)) {
+				return verbosity;
+			}
+		}
+		throw new IllegalArgumentException("Unknown verbosity: " + name);
+	}
+}
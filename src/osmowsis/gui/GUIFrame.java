@@ -5,6 +5,9 @@ import java.awt.BorderLayout;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+import osmowsis.driver.RunRecording;
+import osmowsis.driver.Simulator;
+
 /**
  * 
  * 
@@ -17,26 +20,37 @@ public class GUIFrame extends JFrame {
 
 	private static final long serialVersionUID = 1260226537214861L;
 	
-	private static GUIFrame frame;
-	
-	public static GUIFrame getFrame() {
-		if(frame == null) {
-			frame = new GUIFrame();
-		}
-		return frame;
+	/**
+	 * Constructor
+	 * @param sim The {@link Simulator} to drive from the tool bar
+	 * @param view The {@link GuiSimulationView} the simulator paints on
+	 */
+	public GUIFrame(Simulator sim, GuiSimulationView view) {
+		this(sim, view, null);
 	}
 	
-	public GUIFrame() {
+	/**
+	 * Constructor
+	 * @param sim The {@link Simulator} to drive from the tool bar
+	 * @param view The {@link GuiSimulationView} the simulator paints on
+	 * @param recording The {@link RunRecording} to replay with a {@link ReplayPanel} in place of the tool bar, or null
+	 */
+	public GUIFrame(Simulator sim, GuiSimulationView view, RunRecording recording) {
 		JPanel container = new JPanel();
 		container.setLayout(new BorderLayout());
-		LawnCanvasJPanel canvas = LawnCanvasJPanel.getInstance();
+		LawnCanvasJPanel canvas = view.getCanvas();
 		container.add(canvas);
 		
 		JPanel toolAndStatus = new JPanel();
 		toolAndStatus.setLayout(new BorderLayout());
-		Toolbar tool = new Toolbar();
-		toolAndStatus.add(tool, BorderLayout.NORTH);
-		StatusPanel status = StatusPanel.getInstance();
+		if (recording == null) {
+			Toolbar tool = new Toolbar(sim, view);
+			toolAndStatus.add(tool, BorderLayout.NORTH);
+		} else {
+			ReplayPanel replay = new ReplayPanel(sim, view, recording);
+			toolAndStatus.add(replay, BorderLayout.NORTH);
+		}
+		StatusPanel status = view.getStatusPanel();
 		toolAndStatus.add(status, BorderLayout.CENTER);
 		
 		container.add(toolAndStatus, BorderLayout.EAST);
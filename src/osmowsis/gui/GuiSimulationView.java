@@ -0,0 +1,109 @@
+package osmowsis.gui;
+
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+
+import javax.swing.Timer;
+
+import osmowsis.driver.MowerStatusTracker;
+import osmowsis.driver.SimulationView;
+import osmowsis.driver.Simulator;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.puppy.Puppy;
+
+/**
+ *
+ *
+ * The Swing {@link SimulationView}, painting on the {@link LawnCanvasJPanel}
+ * and the {@link StatusPanel}
+ *
+ * @author Laura  Wang
+ *
+ */
+public class GuiSimulationView implements SimulationView {
+
+	private LawnCanvasJPanel canvas = new LawnCanvasJPanel();
+
+	private StatusPanel statusPanel = new StatusPanel();
+
+	/**
+	 * Returns the lawn canvas
+	 * 
+	 * @return The {@link LawnCanvasJPanel}
+	 */
+	public LawnCanvasJPanel getCanvas() {
+		return canvas;
+	}
+
+	/**
+	 * Returns the status panel
+	 * 
+	 * @return The {@link StatusPanel}
+	 */
+	public StatusPanel getStatusPanel() {
+		return statusPanel;
+	}
+
+	@Override
+	public void initView(final Simulator sim, int width, int height, List<String> craters, List<LawnMower> mowers,
+			List<Puppy> puppies, int grassCount, int maxTurns) {
+		canvas.initCanvas(width, height, craters, mowers, puppies);
+		statusPanel.initStatusPanel(mowers, puppies, grassCount, maxTurns);
+
+		// timer to update the status panel
+		Timer simpleTimer = new Timer(5, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				sim.publishStatus();
+			}
+
+		});
+
+		simpleTimer.start();
+	}
+
+	@Override
+	public void updateCanvasSquare(int x, int y, CanvasSquareState newState, boolean active) {
+		canvas.updateCanvasSquare(x, y, newState, active);
+	}
+
+	@Override
+	public void setMowerActiveColor(int x, int y) {
+		canvas.setActiveColor(x, y, Color.RED);
+	}
+
+	@Override
+	public void setPuppyActiveColor(int x, int y) {
+		canvas.setActiveColor(x, y, Color.BLUE);
+	}
+
+	@Override
+	public void setMowerSquareText(int x, int y, String text) {
+		canvas.setMowerSquareText(x, y, text);
+	}
+
+	@Override
+	public void setPuppySquareText(int x, int y, String text) {
+		canvas.setPuppySquareText(x, y, text);
+	}
+
+	@Override
+	public void repaint(int x, int y) {
+		canvas.repaint(x, y);
+	}
+
+	@Override
+	public void setActive(int x, int y, boolean active) {
+		canvas.setActive(x, y, active);
+	}
+
+	@Override
+	public void updateStatus(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex,
+			int puppyPollingIndex, int grassCutSoFar, int grassRemaining, int turnsRemaining) {
+		statusPanel.updateObjectsPanel(mowerStatuses, pollMower, mowerPollingIndex, puppyPollingIndex);
+		statusPanel.updateSummaryPanel(grassCutSoFar, grassRemaining, turnsRemaining);
+	}
+}
@@ -23,15 +23,6 @@ public class LawnCanvasJPanel extends JPanel {
 
 	private CanvasSquare[][] canvasSquares;
 
-	private static LawnCanvasJPanel canvas;
-
-	public static LawnCanvasJPanel getInstance() {
-		if (canvas == null) {
-			canvas = new LawnCanvasJPanel();
-		}
-		return canvas;
-	}
-
 	/**
 	 * Inits the UI panel
 	 * 
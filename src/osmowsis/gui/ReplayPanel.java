@@ -0,0 +1,239 @@
+package osmowsis.gui;
+
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import osmowsis.driver.RunRecording;
+import osmowsis.driver.Simulator;
+
+/**
+ *
+ *
+ * The replay controls for a recorded run, in place of the {@link Toolbar}:
+ * poll by poll, playback at a chosen number of polls per frame, and seek to any
+ * turn of the {@link RunRecording}
+ *
+ * @author Laura  Wang
+ *
+ */
+public class ReplayPanel extends JPanel {
+
+	private static final long serialVersionUID = -2390541237612281784L;
+
+	/**
+	 * How often playback advances and repaints, in milliseconds
+	 */
+	private static final int FRAME_MILLIS = 40;
+
+	private Simulator sim;
+	private GuiSimulationView view;
+	private RunRecording recording;
+	private Timer player;
+	private JButton next;
+	private JButton play;
+	private JSpinner speed;
+	private JSlider turn;
+	private JLabel turnLabel;
+	private JButton seek;
+
+	/**
+	 * If the replay has reached the end of the run; the polling controls are
+	 * disabled until a seek goes back
+	 */
+	private boolean ended;
+
+	/**
+	 * Constructor
+	 *
+	 * @param sim
+	 *            The {@link Simulator} the recording is restored into
+	 * @param view
+	 *            The {@link GuiSimulationView} the simulator paints on
+	 * @param recording
+	 *            The {@link RunRecording}
+	 */
+	public ReplayPanel(Simulator sim, GuiSimulationView view, RunRecording recording) {
+		this.sim = sim;
+		this.view = view;
+		this.recording = recording;
+		setLayout(new GridLayout(3, 1));
+
+		JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		next = createNextButton();
+		buttons.add(next);
+		play = createPlayButton();
+		buttons.add(play);
+		buttons.add(new JLabel("Polls per frame"));
+		speed = new JSpinner(new SpinnerNumberModel(1, 1, 100000, 1));
+		buttons.add(speed);
+		add(buttons);
+
+		turn = new JSlider(recording.getFirstTurn(), recording.getLastTurn(), sim.getTurnCount());
+		turn.addChangeListener(new ChangeListener() {
+
+			@Override
+			public void stateChanged(ChangeEvent arg0) {
+				turnLabel.setText("Turn " + turn.getValue());
+			}
+
+		});
+		add(turn);
+
+		JPanel seekPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		turnLabel = new JLabel("Turn " + turn.getValue());
+		seekPanel.add(turnLabel);
+		seek = createSeekButton();
+		seekPanel.add(seek);
+		add(seekPanel);
+
+		player = new Timer(FRAME_MILLIS, new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				playFrame();
+			}
+
+		});
+		ended = sim.shouldEndSimulation();
+		setControlsEnabled(true);
+	}
+
+	private JButton createNextButton() {
+		next = new JButton("Next Poll");
+		next.setToolTipText("Click to replay the next poll.");
+		next.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				next.setEnabled(false);
+				ended = sim.run();
+				showTurn();
+				setControlsEnabled(true);
+			}
+
+		});
+		return next;
+	}
+
+	private JButton createPlayButton() {
+		play = new JButton("Play");
+		play.setToolTipText("Click to play back or pause the replay.");
+		play.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				if (player.isRunning()) {
+					pause();
+				} else {
+					player.start();
+					play.setText("Pause");
+				}
+			}
+
+		});
+		return play;
+	}
+
+	private JButton createSeekButton() {
+		seek = new JButton("Seek");
+		seek.setToolTipText("Click to jump to the chosen turn.");
+		seek.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				pause();
+				setControlsEnabled(false);
+				final int target = turn.getValue();
+
+				// restore the keyframe and run up to the turn on a worker thread without
+				// painting, then repaint the whole lawn once
+				sim.setView(null);
+
+				new SwingWorker<Void, Void>() {
+
+					@Override
+					protected Void doInBackground() throws Exception {
+						recording.seek(sim, target);
+						return null;
+					}
+
+					@Override
+					protected void done() {
+						sim.setView(view);
+						sim.paintState(view);
+						ended = sim.shouldEndSimulation();
+						setControlsEnabled(true);
+						showTurn();
+
+						try {
+							get();
+						} catch (InterruptedException | ExecutionException e) {
+							JOptionPane.showMessageDialog(null, "Seek failed: " + e.getCause(), "Error",
+									JOptionPane.ERROR_MESSAGE);
+						}
+					}
+				}.execute();
+			}
+
+		});
+		return seek;
+	}
+
+	/**
+	 * Replays the polls of one playback frame: one poll painted as it happens, or
+	 * more without painting and one repaint of the whole lawn
+	 */
+	private void playFrame() {
+		int polls = (Integer) speed.getValue();
+		boolean end;
+		if (polls == 1) {
+			end = sim.run();
+		} else {
+			sim.setView(null);
+			end = sim.runPolls(polls);
+			sim.setView(view);
+			sim.paintState(view);
+		}
+		showTurn();
+		if (end) {
+			ended = true;
+			pause();
+			setControlsEnabled(true);
+		}
+	}
+
+	private void pause() {
+		player.stop();
+		play.setText("Play");
+	}
+
+	private void showTurn() {
+		turn.setValue(sim.getTurnCount());
+	}
+
+	/**
+	 * Enables or disables the controls; the polling controls stay disabled at the
+	 * end of the run
+	 */
+	private void setControlsEnabled(boolean enabled) {
+		next.setEnabled(enabled && !ended);
+		play.setEnabled(enabled && !ended);
+		turn.setEnabled(enabled);
+		seek.setEnabled(enabled);
+	}
+}
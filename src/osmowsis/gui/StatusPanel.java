@@ -2,12 +2,14 @@ package osmowsis.gui;
 
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
+import java.awt.Window;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
+import osmowsis.driver.MowerStatusTracker;
 import osmowsis.model.lawnmower.LawnMower;
 import osmowsis.model.puppy.Puppy;
 
@@ -23,23 +25,10 @@ public class StatusPanel extends JPanel {
 
 	private static final long serialVersionUID = 5374526368938674660L;
 
-	private static StatusPanel statusPanel;
-	
 	private ObjectsPanel objectsPanel;
 	
 	private SummaryPanel summaryPanel;
 	
-	/**
-	 * Returns the StatusPanel instance
-	 * @return The StatusPanel
-	 */
-	public static StatusPanel getInstance() {
-		if(statusPanel == null) {
-			statusPanel = new StatusPanel();
-		}
-		return statusPanel;
-	}
-	
 	/**
 	 * Initialize the StatusPanel
 	 * @param mowers List of mowers
@@ -55,15 +44,13 @@ public class StatusPanel extends JPanel {
 	
 	/**
 	 * Updates the StatuPanel
-	 * @param crashedMowerIds List of crashed mower ids
-	 * @param stalledMowerIds List of stalled mower ids (mower-mower & mower-puppy)
-	 * @param stalledTurnsByMowerIds Remaining stalled turns by mower id (mower-mower collision)
+	 * @param mowerStatuses Crashed, stalled (mower-mower & mower-puppy) and turned-off status of the mowers
 	 * @param pollMower Whether or not simulator is polling a mower
 	 * @param mowerPollingIndex The current polling index for mower
 	 * @param puppyPollingIndex The current polling index for puppy
 	 */
-	public void updateObjectsPanel(List<Integer> crashedMowerIds, List<Integer> stalledMowerIds, Map<Integer, Integer> stalledTurnsByMowerIds, boolean pollMower, int mowerPollingIndex, int puppyPollingIndex) {
-		objectsPanel.updateObjectsPanel(crashedMowerIds, stalledMowerIds, stalledTurnsByMowerIds, pollMower, mowerPollingIndex, puppyPollingIndex);
+	public void updateObjectsPanel(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex, int puppyPollingIndex) {
+		objectsPanel.updateObjectsPanel(mowerStatuses, pollMower, mowerPollingIndex, puppyPollingIndex);
 	}
 	
 	/**
@@ -152,26 +139,16 @@ public class StatusPanel extends JPanel {
 			
 		}
 		
-		private void updateObjectsPanel(List<Integer> crashedMowerIds, List<Integer> stalledMowerIds, Map<Integer, Integer> stalledTurnsByMowerIds, boolean pollMower, int mowerPollingIndex, int puppyPollingIndex) {
-			for(Integer crashed: crashedMowerIds) {
-				int i = 1 + crashed;
-				objectsGrid[i][2].setText("true");
-			}
-			for(Integer key : stalledTurnsByMowerIds.keySet()) {
-				int i = 1 + key;
-				int turns = stalledTurnsByMowerIds.get(key);
-				objectsGrid[i][2].setText(turns + "");
-			}
-			
-			for(Integer key : stalledMowerIds) {
-				int i = 1 + key;
-				if(!stalledTurnsByMowerIds.containsKey(i)) {
-					objectsGrid[i][2].setText("Until puppy moves");
-				}
-			}
-			
+		private void updateObjectsPanel(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex, int puppyPollingIndex) {
 			for(int i = 1; i<=mowerCount; i++) {
-				if(!stalledMowerIds.contains(i - 1)) {
+				int id = i - 1;
+				objectsGrid[i][3].setText(mowerStatuses.isCrashed(id) + "");
+				
+				if(mowerStatuses.isStalledByMower(id)) {
+					objectsGrid[i][2].setText(mowerStatuses.getStallTurnsRemaining(id) + "");
+				} else if(mowerStatuses.isStalled(id)) {
+					objectsGrid[i][2].setText("Until puppy moves");
+				} else {
 					objectsGrid[i][2].setText("N/A");
 				}
 				
@@ -192,7 +169,10 @@ public class StatusPanel extends JPanel {
 				}
 			}
 			
-			GUIFrame.getFrame().pack();
+			Window frame = SwingUtilities.getWindowAncestor(StatusPanel.this);
+			if(frame != null) {
+				frame.pack();
+			}
 			
 		}
 	}
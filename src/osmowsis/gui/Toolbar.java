@@ -2,10 +2,13 @@ package osmowsis.gui;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
 import javax.swing.JButton;
 import javax.swing.JOptionPane;
 import javax.swing.JToolBar;
-import javax.swing.Timer;
+import javax.swing.SwingWorker;
 
 import osmowsis.driver.Simulator;
 
@@ -21,12 +24,34 @@ public class Toolbar extends JToolBar {
 
 	private static final long serialVersionUID = -5261480899581379323L;
 
-	private Timer timer;
+	/**
+	 * Number of polls fast forward runs between checks of the frame time
+	 */
+	private static final int POLLS_PER_BATCH = 256;
+
+	/**
+	 * How often fast forward repaints the lawn, in milliseconds
+	 */
+	private static final long FRAME_MILLIS = 40;
+
+	private Simulator sim;
+	private GuiSimulationView view;
 	private JButton next;
 	private JButton forward;
 	private JButton stop;
 
-	public Toolbar() {
+	/**
+	 * Constructor
+	 * 
+	 * @param sim
+	 *            The {@link Simulator} to drive
+	 * @param view
+	 *            The {@link GuiSimulationView} the simulator paints on
+	 */
+	public Toolbar(Simulator sim, GuiSimulationView view) {
+		this.sim = sim;
+		this.view = view;
+
 		next = createNextButton();
 		add(next);
 
@@ -54,7 +79,7 @@ public class Toolbar extends JToolBar {
 				next.setEnabled(false);
 				forward.setEnabled(false);
 				stop.setEnabled(false);
-				Simulator.getInstance().printFinalReport();
+				sim.printFinalReport();
 			}
 
 		});
@@ -77,24 +102,48 @@ public class Toolbar extends JToolBar {
 				next.setEnabled(false);
 				stop.setEnabled(false);
 
-				timer = new Timer(5, new ActionListener() {
+				// run the polls on a worker thread without painting every change, and
+				// repaint the whole lawn once per frame
+				sim.setView(null);
+
+				new SwingWorker<Void, Boolean>() {
 
 					@Override
-					public void actionPerformed(ActionEvent arg0) {
+					protected Void doInBackground() {
+						boolean end = false;
+						while (!end) {
+							long frameEnd = System.currentTimeMillis() + FRAME_MILLIS;
+							do {
+								end = sim.runPolls(POLLS_PER_BATCH);
+							} while (!end && System.currentTimeMillis() < frameEnd);
+							publish(end);
+						}
+						return null;
+					}
 
-						boolean end = Simulator.getInstance().run();
+					@Override
+					protected void process(List<Boolean> frames) {
+						sim.paintState(view);
+					}
 
-						if (end) {
-							timer.stop();
-							
-							JOptionPane.showMessageDialog(null,
-									"Simulation ended. To run again, close and reinitialize with another file.", "End",
-									JOptionPane.INFORMATION_MESSAGE);
+					@Override
+					protected void done() {
+						sim.setView(view);
+						sim.paintState(view);
+
+						try {
+							get();
+						} catch (InterruptedException | ExecutionException e) {
+							JOptionPane.showMessageDialog(null, "Simulation failed: " + e.getCause(), "Error",
+									JOptionPane.ERROR_MESSAGE);
+							return;
 						}
-					}
-				});
 
-				timer.start();
+						JOptionPane.showMessageDialog(null,
+								"Simulation ended. To run again, close and reinitialize with another file.", "End",
+								JOptionPane.INFORMATION_MESSAGE);
+					}
+				}.execute();
 
 			}
 
@@ -110,7 +159,7 @@ public class Toolbar extends JToolBar {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
 				next.setEnabled(false);
-				boolean end = Simulator.getInstance().run();
+				boolean end = sim.run();
 				next.setEnabled(!end);
 			}
 
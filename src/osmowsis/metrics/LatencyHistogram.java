@@ -0,0 +1,119 @@
+package osmowsis.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ *
+ * A latency histogram with log-linear buckets: four buckets per power of two,
+ * so a bucket is at most a quarter of its lower bound wide. Fixed size, no
+ * allocation when recording, and safe to record into from several threads.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Buckets per power of two, as a number of mantissa bits
+	 */
+	private static final int SUB_BITS = 2;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder total = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records a latency
+	 *
+	 * @param nanos
+	 *            The latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucketOf(nanos));
+		count.increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Clears the histogram
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.reset();
+	}
+
+	/**
+	 * Returns a summary of the latencies recorded so far
+	 *
+	 * @return The {@link LatencySummary}
+	 */
+	public LatencySummary summary() {
+		long[] counts = new long[BUCKETS];
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			n += counts[i];
+		}
+		double mean = n == 0 ? 0 : (double) total.sum() / count.sum();
+		long maxNanos = max.get();
+		return new LatencySummary(n, mean, percentile(counts, n, 0.5, maxNanos), percentile(counts, n, 0.9, maxNanos),
+				percentile(counts, n, 0.99, maxNanos), maxNanos);
+	}
+
+	/**
+	 * Returns the upper bound of the bucket holding the percentile, capped by the
+	 * maximum
+	 */
+	private static long percentile(long[] counts, long n, double fraction, long maxNanos) {
+		if (n == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(fraction * n);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+	}
+
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long mantissa = bucket % SUB_BUCKETS;
+		long lower = (SUB_BUCKETS + mantissa) << (exponent - SUB_BITS);
+		return lower + (1L << (exponent - SUB_BITS)) - 1;
+	}
+}
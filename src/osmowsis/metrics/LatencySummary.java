@@ -0,0 +1,85 @@
+package osmowsis.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ *
+ *
+ * A snapshot of a {@link LatencyHistogram}: the count and the mean, median,
+ * 90th and 99th percentile and maximum latency in nanoseconds. The percentiles
+ * are accurate to the width of a histogram bucket.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class LatencySummary {
+
+	private long count;
+
+	private double meanNanos;
+
+	private long p50Nanos;
+
+	private long p90Nanos;
+
+	private long p99Nanos;
+
+	private long maxNanos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param count
+	 *            The number of latencies recorded
+	 * @param meanNanos
+	 *            The mean
+	 * @param p50Nanos
+	 *            The median
+	 * @param p90Nanos
+	 *            The 90th percentile
+	 * @param p99Nanos
+	 *            The 99th percentile
+	 * @param maxNanos
+	 *            The maximum
+	 */
+	@ConstructorProperties({ "count", "meanNanos", "p50Nanos", "p90Nanos", "p99Nanos", "maxNanos" })
+	public LatencySummary(long count, double meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+			long maxNanos) {
+		this.count = count;
+		this.meanNanos = meanNanos;
+		this.p50Nanos = p50Nanos;
+		this.p90Nanos = p90Nanos;
+		this.p99Nanos = p99Nanos;
+		this.maxNanos = maxNanos;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP90Nanos() {
+		return p90Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.0fns p50=%dns p90=%dns p99=%dns max=%dns", count, meanNanos, p50Nanos,
+				p90Nanos, p99Nanos, maxNanos);
+	}
+}
@@ -0,0 +1,40 @@
+package osmowsis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ *
+ * A flight recorder event for a mower deciding its next action, see
+ * {@link osmowsis.model.lawnmower.LawnMower#decidesNextAction()}
+ *
+ * @author Laura  Wang
+ *
+ */
+@Name("osmowsis.MowerDecision")
+@Label("Mower Decision")
+@Category({ "OSMOWSIS", "Simulation" })
+@Description("LawnMower.decidesNextAction")
+@Enabled(false)
+@StackTrace(false)
+public class MowerDecisionEvent extends Event {
+
+	@Label("Mower Id")
+	public int mowerId;
+
+	@Label("Turn")
+	public int turn;
+
+	@Label("Action")
+	public String action;
+
+	@Label("Steps")
+	@Description("The steps of a move")
+	public int steps;
+}
@@ -0,0 +1,43 @@
+package osmowsis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ *
+ * A flight recorder event for a mower poll: the action taken and its outcome
+ *
+ * @author Laura  Wang
+ *
+ */
+@Name("osmowsis.MowerPoll")
+@Label("Mower Poll")
+@Category({ "OSMOWSIS", "Simulation" })
+@Description("A mower polled and its action committed")
+@Enabled(false)
+@StackTrace(false)
+public class MowerPollEvent extends Event {
+
+	@Label("Mower Id")
+	public int mowerId;
+
+	@Label("Turn")
+	public int turn;
+
+	@Label("Action")
+	public String action;
+
+	@Label("Steps")
+	@Description("The steps of a move")
+	public int steps;
+
+	@Label("Steps Taken")
+	@Description("The steps taken before a stall or crash, or all steps of a move")
+	public int stepsTaken;
+}
@@ -0,0 +1,40 @@
+package osmowsis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ *
+ * A flight recorder event for one {@link osmowsis.driver.Simulator#run()}: a
+ * poll, or a whole phase when the turn is committed by tiles. Like the other
+ * osmowsis events, it is disabled by default and costs nothing until the
+ * settings (.jfc file) of a recording enable it.
+ *
+ * @author Laura  Wang
+ *
+ */
+@Name("osmowsis.Poll")
+@Label("Simulation Poll")
+@Category({ "OSMOWSIS", "Simulation" })
+@Description("One call of Simulator.run")
+@Enabled(false)
+@StackTrace(false)
+public class PollEvent extends Event {
+
+	@Label("Turn")
+	public int turn;
+
+	@Label("Mower Phase")
+	@Description("If mowers were polled rather than puppies")
+	public boolean mowerPhase;
+
+	@Label("Ended")
+	@Description("If the simulation ended with this poll")
+	public boolean ended;
+}
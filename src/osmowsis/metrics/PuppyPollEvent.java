@@ -0,0 +1,35 @@
+package osmowsis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ *
+ * A flight recorder event for a puppy poll
+ *
+ * @author Laura  Wang
+ *
+ */
+@Name("osmowsis.PuppyPoll")
+@Label("Puppy Poll")
+@Category({ "OSMOWSIS", "Simulation" })
+@Description("A puppy polled and its action committed")
+@Enabled(false)
+@StackTrace(false)
+public class PuppyPollEvent extends Event {
+
+	@Label("Puppy Id")
+	public int puppyId;
+
+	@Label("Turn")
+	public int turn;
+
+	@Label("Action")
+	public String action;
+}
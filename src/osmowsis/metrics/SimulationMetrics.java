@@ -0,0 +1,222 @@
+package osmowsis.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ *
+ *
+ * Counters and latency histograms of a simulation run, recorded by the
+ * simulator when it has metrics (see
+ * {@link osmowsis.driver.Simulator#setMetrics(SimulationMetrics)}). Recording is
+ * lock-free, so the parallel phases record from their worker threads. Exposed
+ * over JMX with {@link #register()}, and printed with {@link #dump(PrintStream)}.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class SimulationMetrics implements SimulationMetricsMXBean {
+
+	/**
+	 * The JMX name the metrics register under
+	 */
+	public static final String OBJECT_NAME = "osmowsis:type=SimulationMetrics";
+
+	private final EnumMap<TimedPhase, LatencyHistogram> latencies = new EnumMap<TimedPhase, LatencyHistogram>(
+			TimedPhase.class);
+
+	private final LongAdder polls = new LongAdder();
+
+	private final LongAdder turns = new LongAdder();
+
+	private final LongAdder scans = new LongAdder();
+
+	private final LongAdder stalls = new LongAdder();
+
+	private final LongAdder crashes = new LongAdder();
+
+	private volatile long startNanos = System.nanoTime();
+
+	/**
+	 * Constructor
+	 */
+	public SimulationMetrics() {
+		for (TimedPhase phase : TimedPhase.values()) {
+			latencies.put(phase, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, replacing the metrics
+	 * registered before
+	 *
+	 * @throws JMException
+	 */
+	public void register() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+		server.registerMBean(this, name);
+	}
+
+	/**
+	 * Records the latency of a phase
+	 *
+	 * @param phase
+	 *            The {@link TimedPhase}
+	 * @param nanos
+	 *            The latency in nanoseconds
+	 */
+	public void record(TimedPhase phase, long nanos) {
+		latencies.get(phase).record(nanos);
+	}
+
+	public void poll() {
+		polls.increment();
+	}
+
+	public void turn() {
+		turns.increment();
+	}
+
+	public void scan() {
+		scans.increment();
+	}
+
+	public void stall() {
+		stalls.increment();
+	}
+
+	public void crash() {
+		crashes.increment();
+	}
+
+	/**
+	 * Returns the latency summary of a phase
+	 *
+	 * @param phase
+	 *            The {@link TimedPhase}
+	 * @return The {@link LatencySummary}
+	 */
+	public LatencySummary getLatency(TimedPhase phase) {
+		return latencies.get(phase).summary();
+	}
+
+	@Override
+	public long getPolls() {
+		return polls.sum();
+	}
+
+	@Override
+	public long getTurns() {
+		return turns.sum();
+	}
+
+	@Override
+	public long getScans() {
+		return scans.sum();
+	}
+
+	@Override
+	public long getStalls() {
+		return stalls.sum();
+	}
+
+	@Override
+	public long getCrashes() {
+		return crashes.sum();
+	}
+
+	@Override
+	public double getPollsPerSecond() {
+		return perSecond(polls);
+	}
+
+	@Override
+	public double getTurnsPerSecond() {
+		return perSecond(turns);
+	}
+
+	@Override
+	public double getScansPerSecond() {
+		return perSecond(scans);
+	}
+
+	@Override
+	public double getStallsPerSecond() {
+		return perSecond(stalls);
+	}
+
+	@Override
+	public double getCrashesPerSecond() {
+		return perSecond(crashes);
+	}
+
+	@Override
+	public LatencySummary getMowerDecision() {
+		return getLatency(TimedPhase.MowerDecision);
+	}
+
+	@Override
+	public LatencySummary getMoveResolution() {
+		return getLatency(TimedPhase.MoveResolution);
+	}
+
+	@Override
+	public LatencySummary getScanServing() {
+		return getLatency(TimedPhase.ScanServing);
+	}
+
+	@Override
+	public LatencySummary getPuppyDecision() {
+		return getLatency(TimedPhase.PuppyDecision);
+	}
+
+	@Override
+	public LatencySummary getViewUpdate() {
+		return getLatency(TimedPhase.ViewUpdate);
+	}
+
+	@Override
+	public void reset() {
+		for (LatencyHistogram histogram : latencies.values()) {
+			histogram.reset();
+		}
+		polls.reset();
+		turns.reset();
+		scans.reset();
+		stalls.reset();
+		crashes.reset();
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Prints the counters, the rates and the latency summaries
+	 *
+	 * @param out
+	 *            The stream to print on
+	 */
+	public void dump(PrintStream out) {
+		out.printf("metrics: %.3fs%n", (System.nanoTime() - startNanos) / 1e9);
+		out.printf("  polls=%d (%.1f/s) turns=%d (%.1f/s) scans=%d (%.1f/s) stalls=%d (%.1f/s) crashes=%d (%.1f/s)%n",
+				getPolls(), getPollsPerSecond(), getTurns(), getTurnsPerSecond(), getScans(), getScansPerSecond(),
+				getStalls(), getStallsPerSecond(), getCrashes(), getCrashesPerSecond());
+		for (TimedPhase phase : TimedPhase.values()) {
+			out.println("  " + phase + ": " + getLatency(phase));
+		}
+		out.flush();
+	}
+
+	private double perSecond(LongAdder counter) {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds <= 0 ? 0 : counter.sum() / seconds;
+	}
+}
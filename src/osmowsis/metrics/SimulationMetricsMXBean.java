@@ -0,0 +1,49 @@
+package osmowsis.metrics;
+
+/**
+ *
+ *
+ * The JMX view of {@link SimulationMetrics}: the counters, their rates per
+ * second since the metrics started (or were reset), and a latency summary per
+ * {@link TimedPhase}
+ *
+ * @author Laura  Wang
+ *
+ */
+public interface SimulationMetricsMXBean {
+
+	long getPolls();
+
+	long getTurns();
+
+	long getScans();
+
+	long getStalls();
+
+	long getCrashes();
+
+	double getPollsPerSecond();
+
+	double getTurnsPerSecond();
+
+	double getScansPerSecond();
+
+	double getStallsPerSecond();
+
+	double getCrashesPerSecond();
+
+	LatencySummary getMowerDecision();
+
+	LatencySummary getMoveResolution();
+
+	LatencySummary getScanServing();
+
+	LatencySummary getPuppyDecision();
+
+	LatencySummary getViewUpdate();
+
+	/**
+	 * Clears the counters and the histograms and restarts the rates
+	 */
+	void reset();
+}
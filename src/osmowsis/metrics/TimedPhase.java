@@ -0,0 +1,37 @@
+package osmowsis.metrics;
+
+/**
+ *
+ *
+ * The parts of a poll whose latency {@link SimulationMetrics} records
+ *
+ * @author Laura  Wang
+ *
+ */
+public enum TimedPhase {
+
+	/**
+	 * A mower deciding its next action
+	 */
+	MowerDecision,
+
+	/**
+	 * The simulator resolving the steps of a mower move
+	 */
+	MoveResolution,
+
+	/**
+	 * The simulator serving a mower scan
+	 */
+	ScanServing,
+
+	/**
+	 * A puppy deciding its next action
+	 */
+	PuppyDecision,
+
+	/**
+	 * A call of the simulator on its view
+	 */
+	ViewUpdate
+}
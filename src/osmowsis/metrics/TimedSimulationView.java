@@ -0,0 +1,105 @@
+package osmowsis.metrics;
+
+import java.util.List;
+
+import osmowsis.driver.MowerStatusTracker;
+import osmowsis.driver.SimulationView;
+import osmowsis.driver.Simulator;
+import osmowsis.gui.CanvasSquareState;
+import osmowsis.model.lawnmower.LawnMower;
+import osmowsis.model.puppy.Puppy;
+
+/**
+ *
+ *
+ * A {@link SimulationView} that records the latency of every call on the view
+ * it wraps as {@link TimedPhase#ViewUpdate}
+ *
+ * @author Laura  Wang
+ *
+ */
+public class TimedSimulationView implements SimulationView {
+
+	private SimulationView view;
+
+	private SimulationMetrics metrics;
+
+	/**
+	 * Constructor
+	 *
+	 * @param view
+	 *            The {@link SimulationView} to time
+	 * @param metrics
+	 *            The {@link SimulationMetrics} to record into
+	 */
+	public TimedSimulationView(SimulationView view, SimulationMetrics metrics) {
+		this.view = view;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void initView(Simulator sim, int width, int height, List<String> craters, List<LawnMower> mowers,
+			List<Puppy> puppies, int grassCount, int maxTurns) {
+		long start = System.nanoTime();
+		view.initView(sim, width, height, craters, mowers, puppies, grassCount, maxTurns);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void updateCanvasSquare(int x, int y, CanvasSquareState newState, boolean active) {
+		long start = System.nanoTime();
+		view.updateCanvasSquare(x, y, newState, active);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void setMowerActiveColor(int x, int y) {
+		long start = System.nanoTime();
+		view.setMowerActiveColor(x, y);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void setPuppyActiveColor(int x, int y) {
+		long start = System.nanoTime();
+		view.setPuppyActiveColor(x, y);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void setMowerSquareText(int x, int y, String text) {
+		long start = System.nanoTime();
+		view.setMowerSquareText(x, y, text);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void setPuppySquareText(int x, int y, String text) {
+		long start = System.nanoTime();
+		view.setPuppySquareText(x, y, text);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void repaint(int x, int y) {
+		long start = System.nanoTime();
+		view.repaint(x, y);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void setActive(int x, int y, boolean active) {
+		long start = System.nanoTime();
+		view.setActive(x, y, active);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+
+	@Override
+	public void updateStatus(MowerStatusTracker mowerStatuses, boolean pollMower, int mowerPollingIndex,
+			int puppyPollingIndex, int grassCutSoFar, int grassRemaining, int turnsRemaining) {
+		long start = System.nanoTime();
+		view.updateStatus(mowerStatuses, pollMower, mowerPollingIndex, puppyPollingIndex, grassCutSoFar,
+				grassRemaining, turnsRemaining);
+		metrics.record(TimedPhase.ViewUpdate, System.nanoTime() - start);
+	}
+}
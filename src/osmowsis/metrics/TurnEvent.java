@@ -0,0 +1,34 @@
+package osmowsis.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ *
+ *
+ * A flight recorder event for a turn, from its first poll to its end
+ *
+ * @author Laura  Wang
+ *
+ */
+@Name("osmowsis.Turn")
+@Label("Simulation Turn")
+@Category({ "OSMOWSIS", "Simulation" })
+@Description("A turn of the simulation")
+@Enabled(false)
+@StackTrace(false)
+public class TurnEvent extends Event {
+
+	@Label("Turn")
+	@Description("The number of the turn, counting from 1")
+	public int turn;
+
+	@Label("Grass Cut")
+	@Description("The grass squares cut by the end of the turn")
+	public int grassCut;
+}
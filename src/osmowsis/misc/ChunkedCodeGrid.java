@@ -0,0 +1,259 @@
+package osmowsis.misc;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * A width x height grid of 4-bit codes, stored in 64 x 64 chunks of sixteen
+ * codes to a long. Chunks are shared copy-on-write between a grid and its
+ * forks: {@link #fork()} copies only the chunk table, and the first write to a
+ * shared chunk copies that chunk.
+ *
+ * A chunk whose cells all have the same code is kept as just that code, and is
+ * only allocated when a cell is first set to another code, so a new grid
+ * allocates no chunks, and memory grows with the cells written rather than
+ * with the area of the grid. Snapshots store uniform chunks as their code.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class ChunkedCodeGrid {
+
+	/**
+	 * Width and height of a chunk, as a power of two
+	 */
+	private static final int CHUNK_SHIFT = 6;
+
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+	/**
+	 * Width and height of a chunk. Cells of different chunks can be written from
+	 * different threads; cells of the same chunk cannot.
+	 */
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	/**
+	 * Number of bits per code
+	 */
+	private static final int BITS = 4;
+
+	/**
+	 * Number of codes per long
+	 */
+	private static final int CODES_PER_WORD = 64 / BITS;
+
+	private static final int WORDS_PER_CHUNK = (1 << (2 * CHUNK_SHIFT)) / CODES_PER_WORD;
+
+	private static final long MASK = (1L << BITS) - 1;
+
+	private int width;
+
+	private int height;
+
+	/**
+	 * Number of chunks in a row of chunks
+	 */
+	private int chunkColumns;
+
+	/**
+	 * The chunks, row by row; null for a uniform chunk
+	 */
+	private long[][] chunks;
+
+	/**
+	 * The code of every cell of a uniform chunk, by chunk
+	 */
+	private byte[] uniformCodes;
+
+	/**
+	 * If the chunk belongs to this grid only and can be written in place
+	 */
+	private boolean[] owned;
+
+	/**
+	 * Constructor
+	 *
+	 * @param width
+	 *            The width of the grid
+	 * @param height
+	 *            The height of the grid
+	 * @param fill
+	 *            The code every cell starts with
+	 */
+	public ChunkedCodeGrid(int width, int height, int fill) {
+		this.width = width;
+		this.height = height;
+		chunkColumns = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+		int chunkRows = (height + CHUNK_MASK) >> CHUNK_SHIFT;
+		chunks = new long[chunkColumns * chunkRows][];
+		owned = new boolean[chunks.length];
+		uniformCodes = new byte[chunks.length];
+		Arrays.fill(uniformCodes, (byte) fill);
+	}
+
+	/**
+	 * Constructor for a fork, sharing every chunk of the other grid
+	 */
+	private ChunkedCodeGrid(ChunkedCodeGrid other) {
+		width = other.width;
+		height = other.height;
+		chunkColumns = other.chunkColumns;
+		chunks = other.chunks.clone();
+		owned = new boolean[chunks.length];
+		uniformCodes = other.uniformCodes.clone();
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the code of the cell
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The code
+	 */
+	public int get(int x, int y) {
+		int index = chunkIndex(x, y);
+		long[] chunk = chunks[index];
+		if (chunk == null) {
+			return uniformCodes[index];
+		}
+		int cell = cellIndex(x, y);
+		return (int) ((chunk[cell / CODES_PER_WORD] >>> ((cell % CODES_PER_WORD) * BITS)) & MASK);
+	}
+
+	/**
+	 * Sets the code of the cell
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param code
+	 *            The code (0 to 15)
+	 */
+	public void set(int x, int y, int code) {
+		int index = chunkIndex(x, y);
+		if (chunks[index] == null) {
+			if (uniformCodes[index] == code) {
+				return;
+			}
+			chunks[index] = new long[WORDS_PER_CHUNK];
+			Arrays.fill(chunks[index], pattern(uniformCodes[index]));
+			owned[index] = true;
+		} else if (!owned[index]) {
+			chunks[index] = chunks[index].clone();
+			owned[index] = true;
+		}
+		long[] chunk = chunks[index];
+		int cell = cellIndex(x, y);
+		int word = cell / CODES_PER_WORD;
+		int shift = (cell % CODES_PER_WORD) * BITS;
+		chunk[word] = (chunk[word] & ~(MASK << shift)) | (((long) code) << shift);
+	}
+
+	/**
+	 * Returns a copy of the grid. Both grids share their chunks until either
+	 * writes to one. Neither grid may be written while the fork is made.
+	 *
+	 * @return The forked {@link ChunkedCodeGrid}
+	 */
+	public ChunkedCodeGrid fork() {
+		Arrays.fill(owned, false);
+		return new ChunkedCodeGrid(this);
+	}
+
+	/**
+	 * Writes the codes to a snapshot
+	 *
+	 * @param out
+	 *            The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		out.writeInt(chunks.length);
+		for (int i = 0; i < chunks.length; i++) {
+			int code = chunks[i] == null ? uniformCodes[i] : uniformCode(chunks[i]);
+			out.writeByte(code);
+			if (code < 0) {
+				for (long word : chunks[i]) {
+					out.writeLong(word);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the codes written by {@link #writeSnapshot(SnapshotOutput)} into a
+	 * grid of the same size
+	 *
+	 * @param in
+	 *            The {@link SnapshotInput}
+	 * @throws IOException
+	 */
+	public void readSnapshot(SnapshotInput in) throws IOException {
+		if (in.readInt() != chunks.length) {
+			throw new IOException("Snapshot grid size does not match");
+		}
+		for (int i = 0; i < chunks.length; i++) {
+			int code = in.readByte();
+			if (code >= 0) {
+				chunks[i] = null;
+				uniformCodes[i] = (byte) code;
+			} else {
+				long[] chunk = new long[WORDS_PER_CHUNK];
+				for (int w = 0; w < WORDS_PER_CHUNK; w++) {
+					chunk[w] = in.readLong();
+				}
+				chunks[i] = chunk;
+			}
+			owned[i] = true;
+		}
+	}
+
+	/**
+	 * Returns a word with every code set to the given code
+	 */
+	private static long pattern(int code) {
+		long pattern = 0;
+		for (int i = 0; i < CODES_PER_WORD; i++) {
+			pattern |= ((long) code) << (i * BITS);
+		}
+		return pattern;
+	}
+
+	/**
+	 * Returns the code of every cell of the chunk, or -1 when the cells differ
+	 */
+	private static int uniformCode(long[] chunk) {
+		long first = chunk[0];
+		int code = (int) (first & MASK);
+		if (first != pattern(code)) {
+			return -1;
+		}
+		for (long word : chunk) {
+			if (word != first) {
+				return -1;
+			}
+		}
+		return code;
+	}
+
+	private int chunkIndex(int x, int y) {
+		return (y >> CHUNK_SHIFT) * chunkColumns + (x >> CHUNK_SHIFT);
+	}
+
+	private int cellIndex(int x, int y) {
+		return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+	}
+}
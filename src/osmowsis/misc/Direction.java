@@ -10,24 +10,40 @@ package osmowsis.misc;
  */
 public enum Direction {
 
-	NORTH("North"),
-	SOUTH("South"),
-	EAST("East"),
-	WEST("West"),
-	NORTH_EAST("Northeast"),
-	NORTH_WEST("Northwest"),
-	SOUTH_EAST("Southeast"),
-	SOUTH_WEST("Southwest");
+	NORTH("North", 0, -1),
+	SOUTH("South", 0, 1),
+	EAST("East", 1, 0),
+	WEST("West", -1, 0),
+	NORTH_EAST("Northeast", 1, -1),
+	NORTH_WEST("Northwest", -1, -1),
+	SOUTH_EAST("Southeast", 1, 1),
+	SOUTH_WEST("Southwest", -1, 1);
 
 	String directionName;
 
-	Direction(String name) {
+	/**
+	 * The change of x and y for one step, in Java convention (y is 0 at the top)
+	 */
+	int deltaX;
+	int deltaY;
+
+	Direction(String name, int deltaX, int deltaY) {
 		directionName = name;
+		this.deltaX = deltaX;
+		this.deltaY = deltaY;
 	}
 
 	public String getName() {
 		return directionName;
 	}
+
+	public int getDeltaX() {
+		return deltaX;
+	}
+
+	public int getDeltaY() {
+		return deltaY;
+	}
 	
 	public static Direction getDirection(String name) {
 		Direction result = null;
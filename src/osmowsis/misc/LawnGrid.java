@@ -0,0 +1,91 @@
+package osmowsis.misc;
+
+import java.io.IOException;
+
+/**
+ * 
+ * 
+ * The lawn landscape: the {@link SquareType} of every square of a width x
+ * height lawn. Coordinates are in Java convention (x horizontal, y vertical
+ * with 0 at the top).
+ * 
+ * @author Laura  Wang
+ *
+ */
+public interface LawnGrid {
+
+	/**
+	 * Returns the width of the lawn
+	 * 
+	 * @return The width
+	 */
+	int getWidth();
+
+	/**
+	 * Returns the height of the lawn
+	 * 
+	 * @return The height
+	 */
+	int getHeight();
+
+	/**
+	 * If the (x,y) coordinate is on the lawn (etc not beyond the fence)
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return True or false
+	 */
+	boolean contains(int x, int y);
+
+	/**
+	 * Returns the type of the square
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The {@link SquareType}
+	 */
+	SquareType get(int x, int y);
+
+	/**
+	 * Sets the type of the square
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param type
+	 *            The {@link SquareType}
+	 */
+	void set(int x, int y, SquareType type);
+
+	/**
+	 * Returns a copy of the lawn that shares its storage with this lawn
+	 * copy-on-write; neither lawn may be written while the fork is made
+	 * 
+	 * @return The forked {@link LawnGrid}
+	 */
+	LawnGrid fork();
+
+	/**
+	 * Writes the square types to a snapshot
+	 * 
+	 * @param out
+	 *            The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	void writeSnapshot(SnapshotOutput out) throws IOException;
+
+	/**
+	 * Reads the square types written by {@link #writeSnapshot(SnapshotOutput)}
+	 * into a lawn of the same size
+	 * 
+	 * @param in
+	 *            The {@link SnapshotInput}
+	 * @throws IOException
+	 */
+	void readSnapshot(SnapshotInput in) throws IOException;
+}
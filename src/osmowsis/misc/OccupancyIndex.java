@@ -0,0 +1,289 @@
+package osmowsis.misc;
+
+import java.util.Arrays;
+
+/**
+ *
+ *
+ * Index of which mower and which puppy is on a lawn square. Only occupied
+ * squares take space: each index is an open-addressing hash table from the
+ * square (y * width + x) to the agent id, so lookups and updates are constant
+ * time however large the lawn is.
+ *
+ * The tables are split by {@link ChunkedCodeGrid#CHUNK_SIZE} square shards of
+ * the lawn, created when an agent first enters them, so agents on different
+ * tiles of a partitioned turn update different tables and can do so
+ * concurrently.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class OccupancyIndex {
+
+	/**
+	 * Returned when no agent is on the square
+	 */
+	public static final int NONE = -1;
+
+	private static final int SHARD_SHIFT = Integer.numberOfTrailingZeros(ChunkedCodeGrid.CHUNK_SIZE);
+
+	private int width;
+
+	/**
+	 * Number of shards in a row of shards
+	 */
+	private int shardColumns;
+
+	/**
+	 * The mower tables by shard, null for shards no mower has entered
+	 */
+	private SquareTable[] mowers;
+
+	/**
+	 * The puppy tables by shard, null for shards no puppy has entered
+	 */
+	private SquareTable[] puppies;
+
+	/**
+	 * Constructor
+	 *
+	 * @param width
+	 *            The width of the lawn
+	 * @param height
+	 *            The height of the lawn
+	 */
+	public OccupancyIndex(int width, int height) {
+		this.width = width;
+		shardColumns = ((width - 1) >> SHARD_SHIFT) + 1;
+		int shardRows = ((height - 1) >> SHARD_SHIFT) + 1;
+		mowers = new SquareTable[shardColumns * shardRows];
+		puppies = new SquareTable[mowers.length];
+	}
+
+	private OccupancyIndex(OccupancyIndex other) {
+		width = other.width;
+		shardColumns = other.shardColumns;
+		mowers = new SquareTable[other.mowers.length];
+		puppies = new SquareTable[other.puppies.length];
+	}
+
+	/**
+	 * Returns an independent copy of the index
+	 *
+	 * @return The copied {@link OccupancyIndex}
+	 */
+	public OccupancyIndex copy() {
+		OccupancyIndex copy = new OccupancyIndex(this);
+		for (int i = 0; i < mowers.length; i++) {
+			if (mowers[i] != null) {
+				copy.mowers[i] = mowers[i].copy();
+			}
+			if (puppies[i] != null) {
+				copy.puppies[i] = puppies[i].copy();
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the id of the mower on the square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The mower id, or {@link #NONE}
+	 */
+	public int mowerAt(int x, int y) {
+		SquareTable table = mowers[shard(x, y)];
+		return table == null ? NONE : table.get(key(x, y));
+	}
+
+	/**
+	 * Returns the id of the puppy on the square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The puppy id, or {@link #NONE}
+	 */
+	public int puppyAt(int x, int y) {
+		SquareTable table = puppies[shard(x, y)];
+		return table == null ? NONE : table.get(key(x, y));
+	}
+
+	/**
+	 * Puts a mower on the square
+	 *
+	 * @param id
+	 *            The mower id
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	public void placeMower(int id, int x, int y) {
+		int shard = shard(x, y);
+		if (mowers[shard] == null) {
+			mowers[shard] = new SquareTable();
+		}
+		mowers[shard].put(key(x, y), id);
+	}
+
+	/**
+	 * Takes the mower off the square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	public void removeMower(int x, int y) {
+		SquareTable table = mowers[shard(x, y)];
+		if (table != null) {
+			table.remove(key(x, y));
+		}
+	}
+
+	/**
+	 * Puts a puppy on the square
+	 *
+	 * @param id
+	 *            The puppy id
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	public void placePuppy(int id, int x, int y) {
+		int shard = shard(x, y);
+		if (puppies[shard] == null) {
+			puppies[shard] = new SquareTable();
+		}
+		puppies[shard].put(key(x, y), id);
+	}
+
+	/**
+	 * Takes the puppy off the square
+	 *
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 */
+	public void removePuppy(int x, int y) {
+		SquareTable table = puppies[shard(x, y)];
+		if (table != null) {
+			table.remove(key(x, y));
+		}
+	}
+
+	private int shard(int x, int y) {
+		return (y >> SHARD_SHIFT) * shardColumns + (x >> SHARD_SHIFT);
+	}
+
+	private long key(int x, int y) {
+		return (long) y * width + x;
+	}
+
+	/**
+	 * Linear-probing hash table from a square key to an agent id
+	 */
+	private static class SquareTable {
+
+		private static final long FREE = -1;
+
+		private long[] keys = newKeys(16);
+
+		private int[] ids = new int[16];
+
+		private int size;
+
+		private static long[] newKeys(int capacity) {
+			long[] keys = new long[capacity];
+			Arrays.fill(keys, FREE);
+			return keys;
+		}
+
+		private int slot(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & (keys.length - 1);
+		}
+
+		private int get(long key) {
+			int mask = keys.length - 1;
+			for (int i = slot(key); keys[i] != FREE; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					return ids[i];
+				}
+			}
+			return NONE;
+		}
+
+		private void put(long key, int id) {
+			int mask = keys.length - 1;
+			int i = slot(key);
+			while (keys[i] != FREE) {
+				if (keys[i] == key) {
+					ids[i] = id;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			ids[i] = id;
+			size += 1;
+
+			if (size * 2 > keys.length) {
+				resize();
+			}
+		}
+
+		private void remove(long key) {
+			int mask = keys.length - 1;
+			int i = slot(key);
+			while (keys[i] != key) {
+				if (keys[i] == FREE) {
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+
+			// shift the following entries of the probe run back over the hole
+			int hole = i;
+			for (int j = (hole + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+				int home = slot(keys[j]);
+				boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+				if (movable) {
+					keys[hole] = keys[j];
+					ids[hole] = ids[j];
+					hole = j;
+				}
+			}
+			keys[hole] = FREE;
+			size -= 1;
+		}
+
+		private SquareTable copy() {
+			SquareTable copy = new SquareTable();
+			copy.keys = keys.clone();
+			copy.ids = ids.clone();
+			copy.size = size;
+			return copy;
+		}
+
+		private void resize() {
+			long[] oldKeys = keys;
+			int[] oldIds = ids;
+			keys = newKeys(oldKeys.length * 2);
+			ids = new int[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					put(oldKeys[i], oldIds[i]);
+				}
+			}
+		}
+	}
+}
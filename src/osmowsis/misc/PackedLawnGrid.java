@@ -0,0 +1,76 @@
+package osmowsis.misc;
+
+import java.io.IOException;
+
+/**
+ *
+ *
+ * A {@link LawnGrid} storing every square as a 4-bit {@link SquareType} code
+ * in a {@link ChunkedCodeGrid}, so forks of the lawn share their squares
+ * copy-on-write.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class PackedLawnGrid implements LawnGrid {
+
+	private ChunkedCodeGrid codes;
+
+	/**
+	 * Constructor
+	 *
+	 * @param width
+	 *            The width of the lawn
+	 * @param height
+	 *            The height of the lawn
+	 * @param fill
+	 *            The {@link SquareType} every square starts as
+	 */
+	public PackedLawnGrid(int width, int height, SquareType fill) {
+		codes = new ChunkedCodeGrid(width, height, fill.getCode());
+	}
+
+	private PackedLawnGrid(ChunkedCodeGrid codes) {
+		this.codes = codes;
+	}
+
+	@Override
+	public int getWidth() {
+		return codes.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+		return codes.getHeight();
+	}
+
+	@Override
+	public boolean contains(int x, int y) {
+		return x >= 0 && y >= 0 && x < codes.getWidth() && y < codes.getHeight();
+	}
+
+	@Override
+	public SquareType get(int x, int y) {
+		return SquareType.fromCode(codes.get(x, y));
+	}
+
+	@Override
+	public void set(int x, int y, SquareType type) {
+		codes.set(x, y, type.getCode());
+	}
+
+	@Override
+	public LawnGrid fork() {
+		return new PackedLawnGrid(codes.fork());
+	}
+
+	@Override
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		codes.writeSnapshot(out);
+	}
+
+	@Override
+	public void readSnapshot(SnapshotInput in) throws IOException {
+		codes.readSnapshot(in);
+	}
+}
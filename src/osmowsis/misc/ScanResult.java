@@ -0,0 +1,91 @@
+package osmowsis.misc;
+
+/**
+ *
+ *
+ * A scan result packed in an int: the {@link SquareType} codes of the eight
+ * squares around a mower, four bits each, in the scan order north, northeast,
+ * east, southeast, south, southwest, west, northwest (the first square in the
+ * lowest bits).
+ *
+ * @author Laura  Wang
+ *
+ */
+public final class ScanResult {
+
+	/**
+	 * Number of squares in a scan
+	 */
+	public static final int SIZE = 8;
+
+	/**
+	 * The scanned directions, in scan order
+	 */
+	private static final Direction[] DIRECTIONS = { Direction.NORTH, Direction.NORTH_EAST, Direction.EAST,
+			Direction.SOUTH_EAST, Direction.SOUTH, Direction.SOUTH_WEST, Direction.WEST, Direction.NORTH_WEST };
+
+	private static final int BITS = 4;
+
+	private static final int MASK = (1 << BITS) - 1;
+
+	private ScanResult() {
+	}
+
+	/**
+	 * Returns the direction of a square of the scan
+	 *
+	 * @param index
+	 *            The index of the square in scan order (0-7)
+	 * @return The {@link Direction}
+	 */
+	public static Direction direction(int index) {
+		return DIRECTIONS[index];
+	}
+
+	/**
+	 * Returns the scan with the type of one square set
+	 *
+	 * @param scan
+	 *            The packed scan
+	 * @param index
+	 *            The index of the square in scan order (0-7)
+	 * @param type
+	 *            The {@link SquareType}
+	 * @return The new packed scan
+	 */
+	public static int with(int scan, int index, SquareType type) {
+		int shift = index * BITS;
+		return (scan & ~(MASK << shift)) | (type.getCode() << shift);
+	}
+
+	/**
+	 * Returns the type of one square of the scan
+	 *
+	 * @param scan
+	 *            The packed scan
+	 * @param index
+	 *            The index of the square in scan order (0-7)
+	 * @return The {@link SquareType}
+	 */
+	public static SquareType get(int scan, int index) {
+		return SquareType.fromCode((scan >>> (index * BITS)) & MASK);
+	}
+
+	/**
+	 * Renders the scan in the protocol format (etc "grass,fence,empty,...")
+	 *
+	 * @param scan
+	 *            The packed scan
+	 * @return The text
+	 */
+	public static String toText(int scan) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < SIZE; i++) {
+			if (i > 0) {
+				text.append(',');
+			}
+			text.append(get(scan, i).getName());
+		}
+		return text.toString();
+	}
+}
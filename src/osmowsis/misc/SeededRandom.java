@@ -0,0 +1,120 @@
+package osmowsis.misc;
+
+/**
+ * 
+ * 
+ * A splittable SplitMix64 random generator. It produces the same numbers as
+ * {@link java.util.SplittableRandom} for the same seed, but its state (seed
+ * and gamma) can be read back, so a run can be saved and resumed on the same
+ * random stream.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public class SeededRandom {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+
+	private long gamma;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param seed
+	 *            The seed
+	 */
+	public SeededRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Constructor for a generator with a known state
+	 * 
+	 * @param seed
+	 *            The seed
+	 * @param gamma
+	 *            The gamma (odd)
+	 */
+	public SeededRandom(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * Returns a new generator with an independent stream
+	 * 
+	 * @return The {@link SeededRandom}
+	 */
+	public SeededRandom split() {
+		return new SeededRandom(nextLong(), mixGamma(nextSeed()));
+	}
+
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	/**
+	 * Returns a uniform number between 0 (inclusive) and bound (exclusive)
+	 * 
+	 * @param bound
+	 *            The bound, must be positive
+	 * @return The number
+	 */
+	public int nextInt(int bound) {
+		int r = nextInt();
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			r &= m;
+		} else {
+			for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+				// reject to keep the result uniform
+			}
+		}
+		return r;
+	}
+
+	private long nextSeed() {
+		return seed += gamma;
+	}
+
+	/**
+	 * Mixes the bits of a value (the SplitMix64 finalizer); a stateless hash for
+	 * numbers that must be random by position rather than by order of drawing
+	 * 
+	 * @param z
+	 *            The value
+	 * @return The mixed value
+	 */
+	public static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
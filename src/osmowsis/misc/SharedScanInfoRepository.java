@@ -1,21 +1,32 @@
 package osmowsis.misc;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * 
  * 
- * The shared repository for scan information from all lawn mowers
+ * The shared repository for scan information from all lawn mowers of one
+ * simulation run. The scanned square types are kept in a grid covering the
+ * lawn and a two-square margin around it (the fence and beyond), so forks of
+ * the repository share it copy-on-write.
  * 
  * @author Laura  Wang
  *
  */
 public class SharedScanInfoRepository {
 	
-	private Map<Integer, SquareType> scanInfo = new HashMap<Integer, SquareType>();
+	/**
+	 * Code of a square that has not been scanned
+	 */
+	private static final int UNKNOWN = 15;
+	
+	/**
+	 * Width of the margin around the lawn; a whole chunk, so the chunks of the
+	 * repository line up with the chunks of the lawn
+	 */
+	private static final int MARGIN = ChunkedCodeGrid.CHUNK_SIZE;
 	
-	private static SharedScanInfoRepository repo;
+	private ChunkedCodeGrid scanInfo;
 	
 	/**
 	 * Number of squares yet to be explored
@@ -23,14 +34,17 @@ public class SharedScanInfoRepository {
 	private int squaresToExplore = 0;
 	
 	/**
-	 * Returns the static singleton instance
-	 * @return The singleton repository
+	 * Constructor
+	 * @param width The width of the lawn
+	 * @param height The height of the lawn
 	 */
-	public static SharedScanInfoRepository getInstance() {
-		if(repo == null) {
-			repo = new SharedScanInfoRepository();
-		}
-		return repo;
+	public SharedScanInfoRepository(int width, int height) {
+		scanInfo = new ChunkedCodeGrid(width + 2 * MARGIN, height + 2 * MARGIN, UNKNOWN);
+	}
+	
+	private SharedScanInfoRepository(ChunkedCodeGrid scanInfo, int squaresToExplore) {
+		this.scanInfo = scanInfo;
+		this.squaresToExplore = squaresToExplore;
 	}
 	
 	/**
@@ -66,57 +80,103 @@ public class SharedScanInfoRepository {
 
 	/**
 	 * Updates the repository
-	 * @param hashCode The hashcode of the (x,y) coordinate
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @param squareType The {@link SquareType}
 	 */
-	public synchronized void put(Integer hashCode, SquareType squareType) {
-		scanInfo.put(hashCode, squareType);
+	public synchronized void put(int x, int y, SquareType squareType) {
+		scanInfo.set(x + MARGIN, y + MARGIN, squareType.getCode());
 	}
 
 	/**
-	 * If the repository has the given key
-	 * @param key THe given hashcode key of (x,y) coordinate
+	 * If the (x,y) coordinate has been scanned
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @return True or false
 	 */
-	public synchronized boolean hasKey(int key) {
-		return scanInfo.containsKey(key);
+	public synchronized boolean hasKey(int x, int y) {
+		return code(x, y) != UNKNOWN;
 	}
 
 	/**
-	 * If the given (x,y) coordinate hashcode corresponds to a {@link SquareType#Grass} lawn square
-	 * @param key The given (x,y) coordinate hash
+	 * If the given (x,y) coordinate corresponds to a {@link SquareType#Grass} lawn square
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @return True or false
 	 */
-	public synchronized boolean isGrass(int key) {
-		return scanInfo.containsKey(key) && scanInfo.get(key)== SquareType.Grass;
+	public synchronized boolean isGrass(int x, int y) {
+		return code(x, y) == SquareType.Grass.getCode();
 	}
 	
 	/**
-	 * If the given (x,y) coordinate hashcode corresponds to a {@link SquareType#Empty} lawn square
-	 * @param key The given (x,y) coordinate hash
+	 * If the given (x,y) coordinate corresponds to a {@link SquareType#Empty} lawn square
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @return True or false
 	 */
-	public synchronized boolean isEmpty(int key) {
-		return scanInfo.containsKey(key) && scanInfo.get(key)==SquareType.Empty;
+	public synchronized boolean isEmpty(int x, int y) {
+		return code(x, y) == SquareType.Empty.getCode();
 	}
 	
 	/**
-	 * If the given (x,y) coordinate hashcode corresponds to a {@link SquareType#Mower} lawn square
-	 * @param key The given (x,y) coordinate hash
+	 * If the given (x,y) coordinate corresponds to a {@link SquareType#Mower} lawn square
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @return True or false
 	 */
-	public synchronized boolean isMower(int key) {
-		return scanInfo.containsKey(key) && scanInfo.get(key)==SquareType.Mower;
+	public synchronized boolean isMower(int x, int y) {
+		return code(x, y) == SquareType.Mower.getCode();
 	}
 	
 	/**
-	 * 
+	 * If the given (x,y) coordinate corresponds to a {@link SquareType#Puppy_grass} lawn square
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True or false
 	 */
-	public synchronized boolean isPuppyGrass(int key) {
-		return scanInfo.containsKey(key) && scanInfo.get(key)==SquareType.Puppy_grass;
+	public synchronized boolean isPuppyGrass(int x, int y) {
+		return code(x, y) == SquareType.Puppy_grass.getCode();
 	}
 	
-	public synchronized boolean occupiedByPuppy(int key) {
-		return scanInfo.containsKey(key) && (scanInfo.get(key) == SquareType.Puppy_empty || scanInfo.get(key) == SquareType.Puppy_mower);
+	public synchronized boolean occupiedByPuppy(int x, int y) {
+		int code = code(x, y);
+		return code == SquareType.Puppy_empty.getCode() || code == SquareType.Puppy_mower.getCode();
+	}
+
+	/**
+	 * Returns a copy of the repository sharing the scanned squares copy-on-write
+	 * @return The forked repository
+	 */
+	public synchronized SharedScanInfoRepository fork() {
+		return new SharedScanInfoRepository(scanInfo.fork(), squaresToExplore);
+	}
+
+	/**
+	 * Writes the repository to a snapshot
+	 * @param out The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public synchronized void writeSnapshot(SnapshotOutput out) throws IOException {
+		out.writeInt(squaresToExplore);
+		scanInfo.writeSnapshot(out);
+	}
+
+	/**
+	 * Reads the repository written by {@link #writeSnapshot(SnapshotOutput)}
+	 * @param in The {@link SnapshotInput}
+	 * @throws IOException
+	 */
+	public synchronized void readSnapshot(SnapshotInput in) throws IOException {
+		squaresToExplore = in.readInt();
+		scanInfo.readSnapshot(in);
+	}
+
+	private int code(int x, int y) {
+		x += MARGIN;
+		y += MARGIN;
+		if (x < 0 || y < 0 || x >= scanInfo.getWidth() || y >= scanInfo.getHeight()) {
+			return UNKNOWN;
+		}
+		return scanInfo.get(x, y);
 	}
 }
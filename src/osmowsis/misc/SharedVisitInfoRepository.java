@@ -1,48 +1,88 @@
 package osmowsis.misc;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * 
  * 
- * The shared repository for visit information from all lawn mowers
+ * The shared repository for visit information from all lawn mowers of one
+ * simulation run, kept in a grid like the {@link SharedScanInfoRepository} so
+ * forks share it copy-on-write
  * 
  * @author Laura  Wang
  *
  */
 public class SharedVisitInfoRepository {
 	
-	private Map<Integer, Boolean> visitInfo = new HashMap<Integer, Boolean>();
+	/**
+	 * Width of the margin around the lawn; a whole chunk, so the chunks of the
+	 * repository line up with the chunks of the lawn
+	 */
+	private static final int MARGIN = ChunkedCodeGrid.CHUNK_SIZE;
 	
-	private static SharedVisitInfoRepository repo;
+	private ChunkedCodeGrid visitInfo;
 	
 	/**
-	 * Returns the singleton repository instance
-	 * @return The repository
+	 * Constructor
+	 * @param width The width of the lawn
+	 * @param height The height of the lawn
 	 */
-	public static SharedVisitInfoRepository getInstance() {
-		if(repo == null) {
-			repo = new SharedVisitInfoRepository();
-		}
-		return repo;
+	public SharedVisitInfoRepository(int width, int height) {
+		visitInfo = new ChunkedCodeGrid(width + 2 * MARGIN, height + 2 * MARGIN, 0);
 	}
-
+	
+	private SharedVisitInfoRepository(ChunkedCodeGrid visitInfo) {
+		this.visitInfo = visitInfo;
+	}
+	
 	/**
 	 * Updates the repository
-	 * @param hashCode The hashcode of (x,y) coordinate
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @param visit True or false
 	 */
-	public void put(Integer hashCode, Boolean visit) {
-		visitInfo.put(hashCode, visit);
+	public void put(int x, int y, boolean visit) {
+		visitInfo.set(x + MARGIN, y + MARGIN, visit ? 1 : 0);
 	}
 
 	/**
-	 * If the (x,y) coordinate represented by the given hashcode key has been visited by a lawn mower
-	 * @param hashCode The coordinate hash
+	 * If the (x,y) coordinate has been visited by a lawn mower
+	 * @param x The x coordinate
+	 * @param y The y coordinate
 	 * @return True or false
 	 */
-	public boolean hasVisited(int hashCode) {
-		return visitInfo.containsKey(hashCode) && visitInfo.get(hashCode);
+	public boolean hasVisited(int x, int y) {
+		x += MARGIN;
+		y += MARGIN;
+		if (x < 0 || y < 0 || x >= visitInfo.getWidth() || y >= visitInfo.getHeight()) {
+			return false;
+		}
+		return visitInfo.get(x, y) != 0;
+	}
+
+	/**
+	 * Returns a copy of the repository sharing the visited squares copy-on-write
+	 * @return The forked repository
+	 */
+	public SharedVisitInfoRepository fork() {
+		return new SharedVisitInfoRepository(visitInfo.fork());
+	}
+
+	/**
+	 * Writes the repository to a snapshot
+	 * @param out The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		visitInfo.writeSnapshot(out);
+	}
+
+	/**
+	 * Reads the repository written by {@link #writeSnapshot(SnapshotOutput)}
+	 * @param in The {@link SnapshotInput}
+	 * @throws IOException
+	 */
+	public void readSnapshot(SnapshotInput in) throws IOException {
+		visitInfo.readSnapshot(in);
 	}
 }
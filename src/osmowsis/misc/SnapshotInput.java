@@ -0,0 +1,67 @@
+package osmowsis.misc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 
+ * 
+ * Reads the primitive values of a simulation snapshot written by
+ * {@link SnapshotOutput} from a channel through a direct buffer.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public class SnapshotInput {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private ReadableByteChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * Constructor
+	 * 
+	 * @param channel
+	 *            The channel to read from
+	 */
+	public SnapshotInput(ReadableByteChannel channel) {
+		this.channel = channel;
+		buffer.limit(0);
+	}
+
+	public int readByte() throws IOException {
+		ensure(1);
+		return buffer.get();
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public int readInt() throws IOException {
+		ensure(4);
+		return buffer.getInt();
+	}
+
+	public long readLong() throws IOException {
+		ensure(8);
+		return buffer.getLong();
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		buffer.compact();
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Snapshot is truncated");
+			}
+		}
+		buffer.flip();
+	}
+}
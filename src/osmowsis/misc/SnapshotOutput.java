@@ -0,0 +1,72 @@
+package osmowsis.misc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 
+ * 
+ * Writes the primitive values of a simulation snapshot to a channel through a
+ * direct buffer. Values are big-endian; {@link #flush()} must be called once
+ * everything is written.
+ * 
+ * @author Laura  Wang
+ *
+ */
+public class SnapshotOutput {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private WritableByteChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * Constructor
+	 * 
+	 * @param channel
+	 *            The channel to write to
+	 */
+	public SnapshotOutput(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	public void writeByte(int value) throws IOException {
+		ensure(1);
+		buffer.put((byte) value);
+	}
+
+	public void writeBoolean(boolean value) throws IOException {
+		writeByte(value ? 1 : 0);
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensure(4);
+		buffer.putInt(value);
+	}
+
+	public void writeLong(long value) throws IOException {
+		ensure(8);
+		buffer.putLong(value);
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+}
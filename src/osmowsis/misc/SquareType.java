@@ -19,6 +19,8 @@ public enum SquareType {
 	Puppy_empty("puppy_empty"),
 	Mower("mower");
 	
+	private static final SquareType[] CODES = values();
+	
 	private String name;
 	
 	private SquareType(String name) {
@@ -29,6 +31,23 @@ public enum SquareType {
 		return name;
 	}
 	
+	/**
+	 * Returns the compact code of the type, see {@link #fromCode(int)}
+	 * @return The code (0-15)
+	 */
+	public int getCode() {
+		return ordinal();
+	}
+	
+	/**
+	 * Returns the type for a compact code
+	 * @param code The code from {@link #getCode()}
+	 * @return The {@link SquareType}
+	 */
+	public static SquareType fromCode(int code) {
+		return CODES[code];
+	}
+	
 	public static SquareType fromName(String name) {
 		for(SquareType type : SquareType.values()) {
 			if(type.getName().equals(name)) {
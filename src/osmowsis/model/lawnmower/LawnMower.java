@@ -1,12 +1,16 @@
 package osmowsis.model.lawnmower;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Stack;
 
 import osmowsis.misc.Direction;
+import osmowsis.misc.ScanResult;
 import osmowsis.misc.SharedScanInfoRepository;
 import osmowsis.misc.SharedVisitInfoRepository;
+import osmowsis.misc.SnapshotInput;
+import osmowsis.misc.SnapshotOutput;
 import osmowsis.misc.Square;
 import osmowsis.misc.SquareType;
 
@@ -21,6 +25,13 @@ import osmowsis.misc.SquareType;
  */
 public class LawnMower {
 
+	/**
+	 * The 8 {@link Direction} directions, in scan order
+	 */
+	private static final List<Direction> EIGHT_DIRECTIONS = Collections.unmodifiableList(
+			Arrays.asList(Direction.NORTH, Direction.NORTH_EAST, Direction.EAST, Direction.SOUTH_EAST,
+					Direction.SOUTH, Direction.SOUTH_WEST, Direction.WEST, Direction.NORTH_WEST));
+
 	/**
 	 * Current direction
 	 */
@@ -34,18 +45,18 @@ public class LawnMower {
 	/**
 	 * All directions and number of steps for each move the mower makes
 	 */
-	private Stack<Direction> pathDirections = new Stack<Direction>();
-	private Stack<Integer> pathSteps = new Stack<Integer>();
+	private PathStack pathDirections = PathStack.EMPTY;
+	private PathStack pathSteps = PathStack.EMPTY;
 
 	/**
 	 * Shared scan repository
 	 */
-	private SharedScanInfoRepository scanInfo = SharedScanInfoRepository.getInstance();
+	private SharedScanInfoRepository scanInfo;
 
 	/**
 	 * Shared visit repository
 	 */
-	private SharedVisitInfoRepository visitInfo = SharedVisitInfoRepository.getInstance();
+	private SharedVisitInfoRepository visitInfo;
 
 	/**
 	 * Backtracking boolean
@@ -75,16 +86,112 @@ public class LawnMower {
 	 *            The initial direction the LawnMower is facing
 	 * @param sqr
 	 *            The initial lawn mower position
-	 */
-	public LawnMower(int id, Direction direction, Square sqr) {
+	 * @param scanInfo
+	 *            The scan repository shared with the other mowers of the run
+	 * @param visitInfo
+	 *            The visit repository shared with the other mowers of the run
+	 */
+	public LawnMower(int id, Direction direction, Square sqr, SharedScanInfoRepository scanInfo,
+			SharedVisitInfoRepository visitInfo) {
+		this.scanInfo = scanInfo;
+		this.visitInfo = visitInfo;
 		currentDirection = direction;
 		int x = sqr.getX();
 		int y = sqr.getY();
 		currentPosition = sqr;
-		visitInfo.put(calculateHashCode(x, y), true);
+		visitInfo.put(x, y, true);
+		mowerId = id;
+	}
+
+	/**
+	 * Constructor for a mower restored from a snapshot
+	 */
+	private LawnMower(int id, SharedScanInfoRepository scanInfo, SharedVisitInfoRepository visitInfo) {
+		this.scanInfo = scanInfo;
+		this.visitInfo = visitInfo;
 		mowerId = id;
 	}
 
+	/**
+	 * Returns a copy of the mower working with the given repositories. The copy
+	 * shares the path of this mower until either mower changes it.
+	 * 
+	 * @param scanInfo
+	 *            The scan repository of the copy
+	 * @param visitInfo
+	 *            The visit repository of the copy
+	 * @return The copied {@link LawnMower}
+	 */
+	public LawnMower fork(SharedScanInfoRepository scanInfo, SharedVisitInfoRepository visitInfo) {
+		LawnMower mower = new LawnMower(mowerId, scanInfo, visitInfo);
+		mower.currentDirection = currentDirection;
+		mower.currentPosition = currentPosition;
+		mower.pathDirections = pathDirections;
+		mower.pathSteps = pathSteps;
+		mower.backTracking = backTracking;
+		mower.onlyPuppyGrassSquareAvailable = onlyPuppyGrassSquareAvailable;
+		return mower;
+	}
+
+	/**
+	 * Writes the state of the mower (position, direction, path and backtracking)
+	 * to a snapshot
+	 * 
+	 * @param out
+	 *            The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		out.writeInt(mowerId);
+		out.writeByte(currentDirection.ordinal());
+		out.writeInt(currentPosition.getX());
+		out.writeInt(currentPosition.getY());
+		out.writeBoolean(backTracking);
+		out.writeBoolean(onlyPuppyGrassSquareAvailable);
+
+		out.writeInt(pathDirections.size());
+		for (int dir : pathDirections.toArray()) {
+			out.writeByte(dir);
+		}
+		out.writeInt(pathSteps.size());
+		for (int steps : pathSteps.toArray()) {
+			out.writeInt(steps);
+		}
+	}
+
+	/**
+	 * Reads a mower written by {@link #writeSnapshot(SnapshotOutput)}
+	 * 
+	 * @param in
+	 *            The {@link SnapshotInput}
+	 * @param scanInfo
+	 *            The scan repository shared with the other mowers of the run
+	 * @param visitInfo
+	 *            The visit repository shared with the other mowers of the run
+	 * @return The {@link LawnMower}
+	 * @throws IOException
+	 */
+	public static LawnMower readSnapshot(SnapshotInput in, SharedScanInfoRepository scanInfo,
+			SharedVisitInfoRepository visitInfo) throws IOException {
+		LawnMower mower = new LawnMower(in.readInt(), scanInfo, visitInfo);
+		mower.currentDirection = Direction.values()[in.readByte()];
+		int x = in.readInt();
+		int y = in.readInt();
+		mower.currentPosition = new Square(x, y);
+		mower.backTracking = in.readBoolean();
+		mower.onlyPuppyGrassSquareAvailable = in.readBoolean();
+
+		int directions = in.readInt();
+		for (int i = 0; i < directions; i++) {
+			mower.pathDirections = mower.pathDirections.push(in.readByte());
+		}
+		int steps = in.readInt();
+		for (int i = 0; i < steps; i++) {
+			mower.pathSteps = mower.pathSteps.push(in.readInt());
+		}
+		return mower;
+	}
+
 	/**
 	 * The id the mower
 	 * 
@@ -107,35 +214,30 @@ public class LawnMower {
 	 * Updates the shared scan info repository
 	 * 
 	 * @param scanResult
-	 *            The scan result
+	 *            The scan result, packed as a {@link ScanResult}
 	 */
-	public void updateSharedScanInfo(List<String> scanResult) {
+	public void updateSharedScanInfo(int scanResult) {
 		int x = currentPosition.getX();
 		int y = currentPosition.getY();
-		int hashCode = calculateHashCode(x, y);
-		scanInfo.put(hashCode, SquareType.Mower);
+		scanInfo.put(x, y, SquareType.Mower);
 
-		List<Direction> scanDirections = getEightDirections();
-		for (int i = 0; i < scanResult.size(); i++) {
-			Direction dir = scanDirections.get(i);
+		for (int i = 0; i < ScanResult.SIZE; i++) {
+			Direction dir = ScanResult.direction(i);
 			x = getRelativeX(1, dir);
 			y = getRelativeY(1, dir);
 
-			hashCode = calculateHashCode(x, y);
-
-			String scan = scanResult.get(i);
-			SquareType type = SquareType.fromName(scan);
+			SquareType type = ScanResult.get(scanResult, i);
 
-			if ((type == SquareType.Grass || type == SquareType.Puppy_grass) && !scanInfo.hasKey(hashCode)) {
+			if ((type == SquareType.Grass || type == SquareType.Puppy_grass) && !scanInfo.hasKey(x, y)) {
 				scanInfo.incrementSquareToExplore();
 			}
 
-			scanInfo.put(hashCode, type);
+			scanInfo.put(x, y, type);
 
 			if (type == SquareType.Empty || type == SquareType.Puppy_empty) {
-				visitInfo.put(hashCode, true);
+				visitInfo.put(x, y, true);
 			} else if (type == SquareType.Mower || type == SquareType.Puppy_mower) {
-				visitInfo.put(hashCode, true);
+				visitInfo.put(x, y, true);
 			}
 		}
 	}
@@ -146,16 +248,7 @@ public class LawnMower {
 	 * @return The directions
 	 */
 	private List<Direction> getEightDirections() {
-		List<Direction> scanDirections = new ArrayList<Direction>();
-		scanDirections.add(Direction.NORTH);
-		scanDirections.add(Direction.NORTH_EAST);
-		scanDirections.add(Direction.EAST);
-		scanDirections.add(Direction.SOUTH_EAST);
-		scanDirections.add(Direction.SOUTH);
-		scanDirections.add(Direction.SOUTH_WEST);
-		scanDirections.add(Direction.WEST);
-		scanDirections.add(Direction.NORTH_WEST);
-		return scanDirections;
+		return EIGHT_DIRECTIONS;
 	}
 
 	/**
@@ -168,8 +261,7 @@ public class LawnMower {
 	 * @return True or false
 	 */
 	private boolean isGrass(int x, int y) {
-		int hashCode = calculateHashCode(x, y);
-		return scanInfo.isGrass(hashCode);
+		return scanInfo.isGrass(x, y);
 	}
 
 	/**
@@ -182,8 +274,7 @@ public class LawnMower {
 	 * @return True or false
 	 */
 	private boolean isPuppyGrass(int x, int y) {
-		int hashCode = calculateHashCode(x, y);
-		return scanInfo.isPuppyGrass(hashCode);
+		return scanInfo.isPuppyGrass(x, y);
 	}
 
 	/**
@@ -196,8 +287,7 @@ public class LawnMower {
 	 * @return True or false
 	 */
 	private boolean isMower(int x, int y) {
-		int hashCode = calculateHashCode(x, y);
-		return scanInfo.isMower(hashCode);
+		return scanInfo.isMower(x, y);
 	}
 
 	/**
@@ -211,8 +301,7 @@ public class LawnMower {
 	 * @return True or false
 	 */
 	private boolean occupiedByPuppy(int x, int y) {
-		int hashCode = calculateHashCode(x, y);
-		return scanInfo.occupiedByPuppy(hashCode);
+		return scanInfo.occupiedByPuppy(x, y);
 	}
 
 	/**
@@ -225,8 +314,7 @@ public class LawnMower {
 	 * @return True or false
 	 */
 	private boolean visited(int x, int y) {
-		int hashCode = calculateHashCode(x, y);
-		return visitInfo.hasVisited(hashCode);
+		return visitInfo.hasVisited(x, y);
 	}
 
 	/**
@@ -247,10 +335,9 @@ public class LawnMower {
 		boolean powerOff = false;
 		int frontX = getRelativeX(1, currentDirection);
 		int frontY = getRelativeY(1, currentDirection);
-		int frontHashCode = calculateHashCode(frontX, frontY);
 
-		if (!scanInfo.hasKey(frontHashCode) || !knowAllEightSurrounding()) {
-			action = new MowerAction(MowerActionType.Scan);
+		if (!scanInfo.hasKey(frontX, frontY) || !knowAllEightSurrounding()) {
+			action = MowerAction.SCAN;
 		} else if (backTracking) {
 			if (scanInfo.getSquaresToExplore() == 0) {
 				powerOff = true;
@@ -259,7 +346,7 @@ public class LawnMower {
 				int y = getRelativeY(1, currentDirection);
 
 				if (isMower(x, y) || occupiedByPuppy(x, y)) {
-					action = new MowerAction(MowerActionType.Scan);
+					action = MowerAction.SCAN;
 				} else {
 					int steps = pathSteps.peek();
 
@@ -268,14 +355,14 @@ public class LawnMower {
 						y = getRelativeY(2, currentDirection);
 
 						if (isMower(x, y) || occupiedByPuppy(x, y)) {
-							action = new MowerAction(MowerActionType.Scan);
+							action = MowerAction.SCAN;
 						} else {
-							pathSteps.pop();
-							action = new MowerAction(MowerActionType.Move, steps, currentDirection);
+							pathSteps = pathSteps.pop();
+							action = MowerAction.move(steps, currentDirection);
 						}
 					} else {
-						pathSteps.pop();
-						action = new MowerAction(MowerActionType.Move, steps, currentDirection);
+						pathSteps = pathSteps.pop();
+						action = MowerAction.move(steps, currentDirection);
 					}
 				}
 			}
@@ -321,13 +408,13 @@ public class LawnMower {
 				}
 			}
 
-			pathDirections.push(currentDir);
+			pathDirections = pathDirections.push(currentDir.ordinal());
 
-			action = new MowerAction(MowerActionType.Move, steps, newDir);
+			action = MowerAction.move(steps, newDir);
 		} else {
 			if (isPuppyGrass(frontX, frontY) && !visited(frontX, frontY) && onlyPuppyGrassSquareAvailable) {
-				action = new MowerAction(MowerActionType.Move, 1, currentDirection);
-				pathDirections.push(currentDirection);
+				action = MowerAction.move(1, currentDirection);
+				pathDirections = pathDirections.push(currentDirection.ordinal());
 			} else {
 				List<Direction> surroundingDirections = getEightDirections();
 				boolean foundGrass = false;
@@ -339,7 +426,7 @@ public class LawnMower {
 
 					if (isGrass(x, y) && !visited(x, y)) {
 						foundGrass = true;
-						action = new MowerAction(MowerActionType.Move, 0, dir);
+						action = MowerAction.move(0, dir);
 						break;
 					} else if (isPuppyGrass(x, y) && !visited(x, y)) {
 						puppyGrassDir = dir;
@@ -347,26 +434,28 @@ public class LawnMower {
 				}
 				if (!foundGrass && puppyGrassDir != null) {
 					if (currentDirection == puppyGrassDir) {
-						action = new MowerAction(MowerActionType.Move, 1, currentDirection);
-						pathDirections.push(currentDirection);
+						action = MowerAction.move(1, currentDirection);
+						pathDirections = pathDirections.push(currentDirection.ordinal());
 					} else {
 						onlyPuppyGrassSquareAvailable = true;
-						action = new MowerAction(MowerActionType.Move, 0, puppyGrassDir);
+						action = MowerAction.move(0, puppyGrassDir);
 					}
 				} else if (!foundGrass) {
 					if (scanInfo.getSquaresToExplore() == 0) {
 						powerOff = true;
 					} else if (pathDirections.isEmpty()) {
-						action = new MowerAction(MowerActionType.Turn_off);
+						action = MowerAction.TURN_OFF;
 					} else {
-						Direction dir = getReverseDirection(pathDirections.pop());
+						Direction dir = getReverseDirection(Direction.values()[pathDirections.peek()]);
+						pathDirections = pathDirections.pop();
 
 						if (dir == currentDirection) {
-							int steps = pathSteps.pop();
-							action = new MowerAction(MowerActionType.Move, steps, dir);
+							int steps = pathSteps.peek();
+							pathSteps = pathSteps.pop();
+							action = MowerAction.move(steps, dir);
 							backTracking = true;
 						} else {
-							action = new MowerAction(MowerActionType.Move, 0, dir);
+							action = MowerAction.move(0, dir);
 							backTracking = true;
 						}
 					}
@@ -376,27 +465,12 @@ public class LawnMower {
 		}
 
 		if (powerOff) {
-			action = new MowerAction(MowerActionType.Turn_off);
+			action = MowerAction.TURN_OFF;
 		}
 
-		printMowerAction();
 		return action;
 	}
 
-	/**
-	 * Prints the mower action
-	 */
-	private void printMowerAction() {
-		System.out.println("mower," + (getId() + 1));
-		if (action.getType() == MowerActionType.Scan) {
-			System.out.println("scan");
-		} else if (action.getType() == MowerActionType.Turn_off) {
-			System.out.println("turn_off");
-		} else {
-			System.out.println("move," + action.getSteps() + "," + action.getNewDirection().getName().toLowerCase());
-		}
-	}
-
 	/**
 	 * Returns the reverse of the given direction
 	 * 
@@ -426,6 +500,26 @@ public class LawnMower {
 		}
 	}
 
+	/**
+	 * Takes the given action as the next action in place of deciding one; used
+	 * when the simulator applies an action decided earlier in the turn
+	 * 
+	 * @param action
+	 *            The {@link MowerAction}
+	 */
+	public void setNextAction(MowerAction action) {
+		this.action = action;
+	}
+
+	/**
+	 * Returns the action last decided or taken
+	 * 
+	 * @return The {@link MowerAction}
+	 */
+	public MowerAction getNextAction() {
+		return action;
+	}
+
 	/**
 	 * Moves to a new position
 	 * 
@@ -438,22 +532,21 @@ public class LawnMower {
 		int currentX = currentPosition.getX();
 		int currentY = currentPosition.getY();
 
-		scanInfo.put(calculateHashCode(currentX, currentY), SquareType.Empty);
+		scanInfo.put(currentX, currentY, SquareType.Empty);
 		for (int s = 1; s <= steps; s++) {
 			int x = getRelativeX(1, currentDirection);
 			int y = getRelativeY(1, currentDirection);
-			int hashCode = calculateHashCode(x, y);
-			visitInfo.put(hashCode, true);
+			visitInfo.put(x, y, true);
 
 			currentPosition = new Square(x, y);
 
-			if (scanInfo.isGrass(hashCode) || scanInfo.isPuppyGrass(hashCode)) {
+			if (scanInfo.isGrass(x, y) || scanInfo.isPuppyGrass(x, y)) {
 				scanInfo.decrementSquaresToExplore(1);
 			}
-			scanInfo.put(hashCode, SquareType.Empty);
+			scanInfo.put(x, y, SquareType.Empty);
 
 			if (s == steps) {
-				scanInfo.put(hashCode, SquareType.Mower);
+				scanInfo.put(x, y, SquareType.Mower);
 			}
 		}
 		currentDirection = newDir;
@@ -468,7 +561,7 @@ public class LawnMower {
 				if (backTracking) {
 					backTracking = false;
 				} else {
-					pathSteps.push(action.getSteps());
+					pathSteps = pathSteps.push(action.getSteps());
 
 					if (onlyPuppyGrassSquareAvailable) {
 						onlyPuppyGrassSquareAvailable = false;
@@ -495,23 +588,22 @@ public class LawnMower {
 	public void processStallResponse(int steps) {
 		if (backTracking == true) {
 			if (steps < action.getSteps()) {
-				pathSteps.add(action.getSteps() - steps);
+				pathSteps = pathSteps.push(action.getSteps() - steps);
 			} else {
 				backTracking = false;
 			}
 		} else if (steps > 0) {
-			pathSteps.push(steps);
+			pathSteps = pathSteps.push(steps);
 
 			if (onlyPuppyGrassSquareAvailable) {
 				onlyPuppyGrassSquareAvailable = false;
 			}
 		} else if (steps == 0) {
-			pathDirections.pop();
+			pathDirections = pathDirections.pop();
 		}
 
 		move(steps, currentDirection);
-		int hashCode = calculateHashCode(currentPosition.getX(), currentPosition.getY());
-		scanInfo.put(hashCode, SquareType.Puppy_mower);
+		scanInfo.put(currentPosition.getX(), currentPosition.getY(), SquareType.Puppy_mower);
 	}
 
 	/**
@@ -555,13 +647,7 @@ public class LawnMower {
 	 * @return The result x coordinate
 	 */
 	private int getRelativeX(int startingX, int steps, Direction dir) {
-		int x = startingX;
-		if (dir == Direction.NORTH_EAST || dir == Direction.SOUTH_EAST || dir == Direction.EAST) {
-			x += steps;
-		} else if (dir == Direction.NORTH_WEST || dir == Direction.SOUTH_WEST || dir == Direction.WEST) {
-			x -= steps;
-		}
-		return x;
+		return startingX + steps * dir.getDeltaX();
 	}
 
 	/**
@@ -577,27 +663,7 @@ public class LawnMower {
 	 * @return The result x coordinate
 	 */
 	private int getRelativeY(int startingY, int steps, Direction dir) {
-		int y = startingY;
-		if (dir == Direction.NORTH || dir == Direction.NORTH_EAST || dir == Direction.NORTH_WEST) {
-			y -= steps;
-		} else if (dir == Direction.SOUTH_WEST || dir == Direction.SOUTH_EAST || dir == Direction.SOUTH) {
-			y += steps;
-		}
-		return y;
-	}
-
-	/**
-	 * Calculates a hashcode of (x,y) coordinate
-	 * 
-	 * @param x
-	 *            The x coordinate
-	 * @param y
-	 *            The y coordinate
-	 * @return The hashcode
-	 */
-	private int calculateHashCode(int x, int y) {
-		String coordinate = "(" + x + "," + y + ")";
-		return coordinate.hashCode();
+		return startingY + steps * dir.getDeltaY();
 	}
 
 	/**
@@ -652,7 +718,7 @@ public class LawnMower {
 		int x = getRelativeX(startingX, 1, currentDirection);
 		int y = getRelativeY(startingY, 1, currentDirection);
 
-		if (!scanInfo.hasKey(calculateHashCode(x, y))) {
+		if (!scanInfo.hasKey(x, y)) {
 			return false;
 		}
 		return (isGrass(x, y) && !visited(x, y)) == false;
@@ -676,7 +742,7 @@ public class LawnMower {
 			int x = getRelativeX(startingX, 1, dir);
 			int y = getRelativeY(startingY, 1, dir);
 
-			if (!scanInfo.hasKey(calculateHashCode(x, y))) {
+			if (!scanInfo.hasKey(x, y)) {
 				knowAll = false;
 				break;
 			}
@@ -5,7 +5,10 @@ import osmowsis.misc.Direction;
 /**
  * 
  * 
- * Encapsulates an action for the mower
+ * Encapsulates an action for the mower. Actions are immutable and canonical:
+ * there is one instance of {@link #SCAN}, of {@link #TURN_OFF} and of every
+ * move of 0 to 2 steps in every direction, so polling a mower allocates
+ * nothing.
  * 
  * @author Laura  Wang
  *
@@ -13,40 +16,102 @@ import osmowsis.misc.Direction;
 public class MowerAction {
 	
 	/**
-	 * The action type {@link MowerActionType}
+	 * The scan action
 	 */
-	private MowerActionType actionType;
+	public static final MowerAction SCAN = new MowerAction(MowerActionType.Scan, 0, null);
 	
 	/**
-	 * Number of steps for a move type action
+	 * The turn off action
 	 */
-	private int moveSteps;
+	public static final MowerAction TURN_OFF = new MowerAction(MowerActionType.Turn_off, 0, null);
 	
 	/**
-	 * The new direction for turning as part of move type action
+	 * The largest number of steps of a move
 	 */
-	private Direction newDirection;
+	private static final int MAX_STEPS = 2;
 	
 	/**
-	 * Constructor
-	 * @param type The {@link MowerActionType} action type
+	 * The move actions, by steps and direction ordinal
 	 */
-	public MowerAction(MowerActionType type){
-		actionType = type;
+	private static final MowerAction[][] MOVES = new MowerAction[MAX_STEPS + 1][Direction.values().length];
+	
+	static {
+		for (int steps = 0; steps <= MAX_STEPS; steps++) {
+			for (Direction dir : Direction.values()) {
+				MOVES[steps][dir.ordinal()] = new MowerAction(MowerActionType.Move, steps, dir);
+			}
+		}
 	}
 	
+	/**
+	 * The action type {@link MowerActionType}
+	 */
+	private final MowerActionType actionType;
+	
+	/**
+	 * Number of steps for a move type action
+	 */
+	private final int moveSteps;
+	
+	/**
+	 * The new direction for turning as part of move type action
+	 */
+	private final Direction newDirection;
+	
 	/**
 	 * Constructs a mower action
 	 * @param type The {@link MowerActionType} action type
 	 * @param steps The number of steps
 	 * @param newDir THe new direction for move type action
 	 */
-	public MowerAction(MowerActionType type, int steps, Direction newDir) {
+	private MowerAction(MowerActionType type, int steps, Direction newDir) {
 		actionType = type;
 		moveSteps = steps;
 		newDirection = newDir;
 	}
 	
+	/**
+	 * Returns the move action
+	 * @param steps The number of steps (0-2)
+	 * @param newDir The new direction for the move
+	 * @return The {@link MowerAction}
+	 */
+	public static MowerAction move(int steps, Direction newDir) {
+		if (steps < 0 || steps > MAX_STEPS) {
+			throw new IllegalArgumentException("Invalid number of steps: " + steps);
+		}
+		return MOVES[steps][newDir.ordinal()];
+	}
+	
+	/**
+	 * Returns the action for a compact code
+	 * @param code The code from {@link #getCode()}
+	 * @return The {@link MowerAction}
+	 */
+	public static MowerAction fromCode(int code) {
+		if (code == SCAN.getCode()) {
+			return SCAN;
+		} else if (code == TURN_OFF.getCode()) {
+			return TURN_OFF;
+		}
+		int move = code - 2;
+		int directions = Direction.values().length;
+		return move(move / directions, Direction.values()[move % directions]);
+	}
+	
+	/**
+	 * Returns the compact code of the action, see {@link #fromCode(int)}
+	 * @return The code
+	 */
+	public int getCode() {
+		if (actionType == MowerActionType.Scan) {
+			return 0;
+		} else if (actionType == MowerActionType.Turn_off) {
+			return 1;
+		}
+		return 2 + moveSteps * Direction.values().length + newDirection.ordinal();
+	}
+	
 	/**
 	 * Returns the type of the action
 	 * @return The {@link MowerActionType} type
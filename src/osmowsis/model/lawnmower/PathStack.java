@@ -0,0 +1,89 @@
+package osmowsis.model.lawnmower;
+
+/**
+ *
+ *
+ * An immutable stack of ints for the path of a mower. Pushing and popping
+ * return a new stack that shares the rest of the elements, so a copy of a mower
+ * shares its path until either mower changes it.
+ *
+ * @author Laura  Wang
+ *
+ */
+public class PathStack {
+
+	/**
+	 * The empty stack
+	 */
+	public static final PathStack EMPTY = new PathStack(0, null, 0);
+
+	private final int top;
+
+	private final PathStack rest;
+
+	private final int size;
+
+	private PathStack(int top, PathStack rest, int size) {
+		this.top = top;
+		this.rest = rest;
+		this.size = size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the stack with the value on top
+	 *
+	 * @param value
+	 *            The value
+	 * @return The new stack
+	 */
+	public PathStack push(int value) {
+		return new PathStack(value, this, size + 1);
+	}
+
+	/**
+	 * Returns the top value
+	 *
+	 * @return The value
+	 */
+	public int peek() {
+		if (isEmpty()) {
+			throw new IllegalStateException("Empty path");
+		}
+		return top;
+	}
+
+	/**
+	 * Returns the stack without its top value
+	 *
+	 * @return The new stack
+	 */
+	public PathStack pop() {
+		if (isEmpty()) {
+			throw new IllegalStateException("Empty path");
+		}
+		return rest;
+	}
+
+	/**
+	 * Returns the values from the bottom to the top of the stack
+	 *
+	 * @return The values
+	 */
+	public int[] toArray() {
+		int[] values = new int[size];
+		PathStack stack = this;
+		for (int i = size - 1; i >= 0; i--) {
+			values[i] = stack.top;
+			stack = stack.rest;
+		}
+		return values;
+	}
+}
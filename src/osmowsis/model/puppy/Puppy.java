@@ -1,10 +1,12 @@
 package osmowsis.model.puppy;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
 
 import osmowsis.misc.Direction;
+import osmowsis.misc.LawnGrid;
+import osmowsis.misc.SeededRandom;
+import osmowsis.misc.SnapshotInput;
+import osmowsis.misc.SnapshotOutput;
 import osmowsis.misc.Square;
 import osmowsis.misc.SquareType;
 
@@ -20,10 +22,23 @@ import osmowsis.misc.SquareType;
 public class Puppy {
 
 	private int stayPercent;
-	private SquareType[][] lawn;
+	private LawnGrid lawn;
 	private Square currentPosition;
 	private int puppyId;
 	private PuppyAction act;
+	private SeededRandom random;
+
+	/**
+	 * The 8 {@link Direction} directions, in the order candidate moves are
+	 * numbered
+	 */
+	private static final Direction[] EIGHT_DIRECTIONS = { Direction.NORTH, Direction.NORTH_EAST, Direction.EAST,
+			Direction.SOUTH_EAST, Direction.SOUTH, Direction.SOUTH_WEST, Direction.WEST, Direction.NORTH_WEST };
+
+	/**
+	 * Scratch array of the safe directions, reused on every poll
+	 */
+	private final Direction[] safeDirections = new Direction[EIGHT_DIRECTIONS.length];
 
 	/**
 	 * Constructor
@@ -34,11 +49,63 @@ public class Puppy {
 	 *            The percentage of time puppy would choose to stay
 	 * @param position
 	 *            The starting position of the puppy
+	 * @param random
+	 *            The random stream of this puppy's decisions
 	 */
-	public Puppy(int id, int stayPercent, Square position) {
+	public Puppy(int id, int stayPercent, Square position, SeededRandom random) {
 		this.stayPercent = stayPercent;
 		this.puppyId = id;
 		this.currentPosition = position;
+		this.random = random;
+	}
+
+	/**
+	 * Returns a copy of the puppy
+	 * 
+	 * @param random
+	 *            The random stream of the copy, or null to continue the stream of
+	 *            this puppy
+	 * @return The copied {@link Puppy}
+	 */
+	public Puppy fork(SeededRandom random) {
+		if (random == null) {
+			random = new SeededRandom(this.random.getSeed(), this.random.getGamma());
+		}
+		return new Puppy(puppyId, stayPercent, currentPosition, random);
+	}
+
+	/**
+	 * Writes the state of the puppy (position and random stream) to a snapshot
+	 * 
+	 * @param out
+	 *            The {@link SnapshotOutput}
+	 * @throws IOException
+	 */
+	public void writeSnapshot(SnapshotOutput out) throws IOException {
+		out.writeInt(puppyId);
+		out.writeInt(stayPercent);
+		out.writeInt(currentPosition.getX());
+		out.writeInt(currentPosition.getY());
+		out.writeLong(random.getSeed());
+		out.writeLong(random.getGamma());
+	}
+
+	/**
+	 * Reads a puppy written by {@link #writeSnapshot(SnapshotOutput)}
+	 * 
+	 * @param in
+	 *            The {@link SnapshotInput}
+	 * @return The {@link Puppy}
+	 * @throws IOException
+	 */
+	public static Puppy readSnapshot(SnapshotInput in) throws IOException {
+		int id = in.readInt();
+		int stayPercent = in.readInt();
+		int x = in.readInt();
+		int y = in.readInt();
+		long seed = in.readLong();
+		long gamma = in.readLong();
+		return new Puppy(id, stayPercent, new Square(x, y), new SeededRandom(seed, gamma));
 	}
 
 	/**
@@ -47,7 +114,7 @@ public class Puppy {
 	 * @param lawn
 	 *            The lawn landsacpe
 	 */
-	public void setLawn(SquareType[][] lawn) {
+	public void setLawn(LawnGrid lawn) {
 		this.lawn = lawn;
 	}
 
@@ -67,37 +134,42 @@ public class Puppy {
 	 */
 	public PuppyAction decidesNextAction() {
 		// uniform between 0 and 100
-		double random = new Random().nextInt(101);
+		int stayRoll = random.nextInt(101);
 
 		// random is less than or equal to stayPercent
-		if (random <= stayPercent) {
-			act = new PuppyAction(PuppyActionType.Stay, null);
+		if (stayRoll <= stayPercent) {
+			act = PuppyAction.STAY;
 		} else {
-			List<Square> safeSquares = getSurroundingSafeSquares();
+			int size = collectSafeDirections();
 
-			if (!safeSquares.isEmpty()) {
-				int size = safeSquares.size();
-				int randomIndex = new Random().nextInt(size);
-				act = new PuppyAction(PuppyActionType.Move, safeSquares.get(randomIndex));
+			if (size > 0) {
+				int randomIndex = random.nextInt(size);
+				act = PuppyAction.move(safeDirections[randomIndex]);
 			} else {
-				act = new PuppyAction(PuppyActionType.Stay, null);
+				act = PuppyAction.STAY;
 			}
 		}
-		printAction();
 		return act;
 	}
 
 	/**
-	 * Prints the puppy action
+	 * Takes the given action as the next action in place of deciding one; used
+	 * when the simulator applies an action decided earlier in the turn
+	 * 
+	 * @param action
+	 *            The {@link PuppyAction}
 	 */
-	private void printAction() {
-		System.out.println("puppy," + (getId() + 1));
-		if (act.getType() == PuppyActionType.Stay) {
-			System.out.println("stay");
-		} else {
-			Square destination = act.getDestination();
-			System.out.println("move," + destination.getX() + "," + (lawn.length - destination.getY() - 1));
-		}
+	public void setNextAction(PuppyAction action) {
+		act = action;
+	}
+
+	/**
+	 * Returns the action last decided or taken
+	 * 
+	 * @return The {@link PuppyAction}
+	 */
+	public PuppyAction getNextAction() {
+		return act;
 	}
 
 	/**
@@ -105,7 +177,8 @@ public class Puppy {
 	 */
 	public void processOkayResponse() {
 		if (act.getType() == PuppyActionType.Move) {
-			this.currentPosition = act.getDestination();
+			Direction dir = act.getDirection();
+			this.currentPosition = new Square(getRelativeX(1, dir), getRelativeY(1, dir));
 		}
 	}
 
@@ -119,48 +192,31 @@ public class Puppy {
 	}
 
 	/**
-	 * Returns the list of "safe" square to move to. Safe is a square that is not a
-	 * crater and is not occupied by a puppy.
+	 * Collects the directions of the "safe" squares to move to into
+	 * {@link #safeDirections}. Safe is a square that is not a crater and is not
+	 * occupied by a puppy.
 	 * 
-	 * @return THe list of squares
+	 * @return The number of safe directions
 	 */
-	private List<Square> getSurroundingSafeSquares() {
-		List<Square> safeSquares = new ArrayList<Square>();
-		for (Direction dir : getEightDirections()) {
+	private int collectSafeDirections() {
+		int count = 0;
+		for (Direction dir : EIGHT_DIRECTIONS) {
 			int x = getRelativeX(1, dir);
 			int y = getRelativeY(1, dir);
 
-			if (x < 0 || y < 0 || x > lawn[0].length - 1 || y > lawn.length - 1) {
+			if (!lawn.contains(x, y)) {
 				continue;
 			}
-			SquareType type = lawn[y][x];
+			SquareType type = lawn.get(x, y);
 
 			boolean notSafe = type == SquareType.Crater || type == SquareType.Puppy_empty
 					|| type == SquareType.Puppy_grass || type == SquareType.Puppy_mower;
 
 			if (!notSafe) {
-				safeSquares.add(new Square(x, y));
+				safeDirections[count++] = dir;
 			}
 		}
-		return safeSquares;
-	}
-
-	/**
-	 * List of 8 {@link Direction} directions
-	 * 
-	 * @return The directions
-	 */
-	private List<Direction> getEightDirections() {
-		List<Direction> scanDirections = new ArrayList<Direction>();
-		scanDirections.add(Direction.NORTH);
-		scanDirections.add(Direction.NORTH_EAST);
-		scanDirections.add(Direction.EAST);
-		scanDirections.add(Direction.SOUTH_EAST);
-		scanDirections.add(Direction.SOUTH);
-		scanDirections.add(Direction.SOUTH_WEST);
-		scanDirections.add(Direction.WEST);
-		scanDirections.add(Direction.NORTH_WEST);
-		return scanDirections;
+		return count;
 	}
 
 	/**
@@ -174,13 +230,7 @@ public class Puppy {
 	 * @return The result x coordinate
 	 */
 	private int getRelativeX(int steps, Direction dir) {
-		int x = currentPosition.getX();
-		if (dir == Direction.NORTH_EAST || dir == Direction.SOUTH_EAST || dir == Direction.EAST) {
-			x += steps;
-		} else if (dir == Direction.NORTH_WEST || dir == Direction.SOUTH_WEST || dir == Direction.WEST) {
-			x -= steps;
-		}
-		return x;
+		return currentPosition.getX() + steps * dir.getDeltaX();
 	}
 
 	/**
@@ -194,13 +244,7 @@ public class Puppy {
 	 * @return The result x coordinate
 	 */
 	private int getRelativeY(int steps, Direction dir) {
-		int y = currentPosition.getY();
-		if (dir == Direction.NORTH || dir == Direction.NORTH_EAST || dir == Direction.NORTH_WEST) {
-			y -= steps;
-		} else if (dir == Direction.SOUTH_WEST || dir == Direction.SOUTH_EAST || dir == Direction.SOUTH) {
-			y += steps;
-		}
-		return y;
+		return currentPosition.getY() + steps * dir.getDeltaY();
 	}
 
 }
\ No newline at end of file
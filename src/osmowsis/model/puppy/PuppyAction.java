@@ -1,50 +1,94 @@
 package osmowsis.model.puppy;
 
-import osmowsis.misc.Square;
+import osmowsis.misc.Direction;
 
 /**
  * 
  * 
- * Encapsulates an action for the puppy
+ * Encapsulates an action for the puppy. Actions are immutable and canonical:
+ * one {@link #STAY} and one move per direction, the destination being the
+ * square next to the puppy in that direction.
  * 
  * @author Laura  Wang
  *
  */
 public class PuppyAction {
 
+	/**
+	 * The stay action
+	 */
+	public static final PuppyAction STAY = new PuppyAction(PuppyActionType.Stay, null);
+
+	/**
+	 * The move actions, by direction ordinal
+	 */
+	private static final PuppyAction[] MOVES = new PuppyAction[Direction.values().length];
+
+	static {
+		for (Direction dir : Direction.values()) {
+			MOVES[dir.ordinal()] = new PuppyAction(PuppyActionType.Move, dir);
+		}
+	}
+
 	/**
 	 * The {@link PuppyActionType} action type
 	 */
-	private PuppyActionType actionType;
+	private final PuppyActionType actionType;
 	
 	/**
-	 * The new destination square in a {@link PuppyActionType#Move} type action
+	 * The direction of a {@link PuppyActionType#Move} type action
 	 */
-	private Square newLocation;
+	private final Direction direction;
 	
 	/**
 	 * Constructor
-	 * @param type The {@link PuppyAcitonType} action type
-	 * @param desination The destination square for {@link PuppyActionType#Move} type action
+	 * @param type The {@link PuppyActionType} action type
+	 * @param direction The direction for {@link PuppyActionType#Move} type action
 	 */
-	public PuppyAction(PuppyActionType type, Square desination) {
+	private PuppyAction(PuppyActionType type, Direction direction) {
 		this.actionType = type;
-		this.newLocation = desination;
+		this.direction = direction;
+	}
+
+	/**
+	 * Returns the move action to the next square in the direction
+	 * @param direction The {@link Direction}
+	 * @return The {@link PuppyAction}
+	 */
+	public static PuppyAction move(Direction direction) {
+		return MOVES[direction.ordinal()];
+	}
+
+	/**
+	 * Returns the action for a compact code
+	 * @param code The code from {@link #getCode()}
+	 * @return The {@link PuppyAction}
+	 */
+	public static PuppyAction fromCode(int code) {
+		return code == 0 ? STAY : MOVES[code - 1];
+	}
+
+	/**
+	 * Returns the compact code of the action, see {@link #fromCode(int)}
+	 * @return The code
+	 */
+	public int getCode() {
+		return actionType == PuppyActionType.Stay ? 0 : 1 + direction.ordinal();
 	}
 	
 	/**
 	 * Returns the action type
-	 * @return The {@link PuppyMoveActionType} action type
+	 * @return The {@link PuppyActionType} action type
 	 */
 	public PuppyActionType getType() {
 		return this.actionType;
 	}
 	
 	/**
-	 * The destination square
-	 * @return The square or null
+	 * The direction of the move
+	 * @return The direction or null
 	 */
-	public Square getDestination() {
-		return this.newLocation;
+	public Direction getDirection() {
+		return this.direction;
 	}
-}
\ No newline at end of file
+}